@@ -0,0 +1,447 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured key/value store backed by a single file.
+ *
+ * Every put is appended to the end of the file and an in-memory index keeps the offset of the
+ * latest value of each key, so a get is a single positioned read. Overwritten and removed values
+ * are left behind as garbage until the log is compacted, which happens automatically once the
+ * garbage outweighs the live data.
+ *
+ * Values are served straight from a read-only memory mapping of the log, so reading a cached value
+ * does not copy it into the Java heap. The log file is never truncated while it is mapped: clearing
+ * and compacting write a new file and rename it over the old one, which keeps previously returned
+ * buffers valid.
+ *
+ * File layout: a header (magic, version) followed by records of (key, length, timestamp, checksum,
+ * payload). The timestamp is the time the value was written and the checksum a CRC32 of the rest of
+ * the record. A record with a negative length is a tombstone for its key.
+ *
+ * Checksums are verified the first time a value is read: a corrupted value is dropped from the
+ * index and reported as missing instead of being handed to the caller.
+ */
+class AppendOnlyStore {
+
+    private static final int MAGIC = 0x55534c47;
+    private static final int VERSION = 3;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 20;
+    private static final int CHECKSUM_OFFSET = 16;
+    private static final int CHECKSUM_BUFFER_SIZE = 512;
+    private static final int TOMBSTONE = -1;
+
+    private static final long COMPACTION_MIN_GARBAGE_BYTES = 64 * 1024;
+    static final String COMPACTION_FILE_SUFFIX = ".compact";
+
+    private final File file;
+    private final Map<Integer, Location> index = new HashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer mappedBuffer;
+    private long fileSize;
+    private long liveBytes;
+
+    /**
+     * Constructor of the class {@link AppendOnlyStore}.
+     * The file is not touched until the store is first used.
+     *
+     * @param file The log file backing this store.
+     */
+    AppendOnlyStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the latest value stored for a key.
+     *
+     * @param key The key to look for.
+     * @return A read-only buffer over the mapped value or null if there is no value for the key.
+     */
+    synchronized ByteBuffer get(int key) throws IOException {
+        open();
+        final Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        if (mappedBuffer == null || mappedBuffer.capacity() < location.offset + location.length) {
+            mappedBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        final ByteBuffer value = mappedBuffer.duplicate();
+        value.position((int) location.offset);
+        value.limit((int) location.offset + location.length);
+        final ByteBuffer slice = value.slice();
+
+        if (!location.verified) {
+            if (checksum(key, location.length, location.timestamp, slice.duplicate()) != location.checksum) {
+                forget(key);
+                return null;
+            }
+            location.verified = true;
+        }
+        return slice;
+    }
+
+    /**
+     * Checks if there is a value stored for a key.
+     */
+    synchronized boolean contains(int key) throws IOException {
+        open();
+        return index.containsKey(key);
+    }
+
+    /**
+     * Gets the time the value of every key was written.
+     *
+     * @return A map from key to the time, in millis, its value was written.
+     */
+    synchronized Map<Integer, Long> timestamps() throws IOException {
+        open();
+        final Map<Integer, Long> timestamps = new HashMap<>(index.size());
+        for (Map.Entry<Integer, Location> entry : index.entrySet()) {
+            timestamps.put(entry.getKey(), entry.getValue().timestamp);
+        }
+        return timestamps;
+    }
+
+    /**
+     * Appends a value for a key, replacing any previous one, written now.
+     *
+     * @param key The key to store the value for.
+     * @param value The bytes to store.
+     */
+    void put(int key, byte[] value) throws IOException {
+        put(key, value, System.currentTimeMillis());
+    }
+
+    /**
+     * Appends a value for a key, replacing any previous one.
+     *
+     * @param key The key to store the value for.
+     * @param value The bytes to store.
+     * @param timestamp The time, in millis, the value was written.
+     */
+    synchronized void put(int key, byte[] value, long timestamp) throws IOException {
+        open();
+        final int checksum = checksum(key, value.length, timestamp, ByteBuffer.wrap(value));
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + value.length);
+        record.putInt(key).putInt(value.length).putLong(timestamp).putInt(checksum).put(value);
+        record.flip();
+
+        final long recordOffset = fileSize;
+        writeFully(channel, record, recordOffset);
+        fileSize += record.capacity();
+
+        forget(key);
+        final Location location = new Location(recordOffset + RECORD_HEADER_SIZE, value.length, timestamp, checksum);
+        location.verified = true;
+        index.put(key, location);
+        liveBytes += record.capacity();
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes the value stored for a key, if any.
+     */
+    synchronized void remove(int key) throws IOException {
+        open();
+        if (!index.containsKey(key)) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        record.putInt(key).putInt(TOMBSTONE).putLong(timestamp).putInt(checksum(key, TOMBSTONE, timestamp, null));
+        record.flip();
+        writeFully(channel, record, fileSize);
+        fileSize += RECORD_HEADER_SIZE;
+
+        forget(key);
+        compactIfNeeded();
+    }
+
+    /**
+     * Removes every value from the store by replacing the log with an empty one.
+     */
+    synchronized void clear() throws IOException {
+        createDirectory();
+        final File emptyFile = new File(file.getPath() + COMPACTION_FILE_SUFFIX);
+        final RandomAccessFile emptyRandomAccessFile = new RandomAccessFile(emptyFile, "rw");
+        try {
+            final FileChannel emptyChannel = emptyRandomAccessFile.getChannel();
+            emptyChannel.truncate(0);
+            writeFileHeader(emptyChannel);
+        } finally {
+            emptyRandomAccessFile.close();
+        }
+        replaceWith(emptyFile);
+    }
+
+    /**
+     * Rewrites the log keeping only the latest value of every key.
+     */
+    synchronized void compact() throws IOException {
+        open();
+        final File compactFile = new File(file.getPath() + COMPACTION_FILE_SUFFIX);
+
+        final RandomAccessFile compactRandomAccessFile = new RandomAccessFile(compactFile, "rw");
+        try {
+            final FileChannel compactChannel = compactRandomAccessFile.getChannel();
+            compactChannel.truncate(0);
+            writeFileHeader(compactChannel);
+            long position = FILE_HEADER_SIZE;
+            for (Map.Entry<Integer, Location> entry : index.entrySet()) {
+                final Location location = entry.getValue();
+                final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + location.length);
+                record.putInt(entry.getKey()).putInt(location.length).putLong(location.timestamp)
+                      .putInt(location.checksum);
+                readFully(channel, record, location.offset);
+                if (!location.verified && checksum(entry.getKey(), location.length, location.timestamp,
+                        ByteBuffer.wrap(record.array(), RECORD_HEADER_SIZE, location.length)) != location.checksum) {
+                    //corrupted values are not carried over
+                    continue;
+                }
+                record.flip();
+                writeFully(compactChannel, record, position);
+                position += record.capacity();
+            }
+            compactChannel.force(false);
+        } finally {
+            compactRandomAccessFile.close();
+        }
+
+        replaceWith(compactFile);
+    }
+
+    /**
+     * Closes the underlying file. The store reopens it on next use.
+     */
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            mappedBuffer = null;
+        }
+    }
+
+    synchronized long size() throws IOException {
+        open();
+        return fileSize;
+    }
+
+    /**
+     * Forces every write done so far to reach the storage device.
+     */
+    synchronized void sync() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+        }
+    }
+
+    private void replaceWith(File newFile) throws IOException {
+        close();
+        if (!newFile.renameTo(file)) {
+            newFile.delete();
+            throw new IOException("Cannot replace " + file + " with " + newFile);
+        }
+        open();
+    }
+
+    private void compactIfNeeded() throws IOException {
+        final long garbageBytes = fileSize - FILE_HEADER_SIZE - liveBytes;
+        if (garbageBytes > COMPACTION_MIN_GARBAGE_BYTES && garbageBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    private void forget(int key) {
+        final Location previous = index.remove(key);
+        if (previous != null) {
+            liveBytes -= RECORD_HEADER_SIZE + previous.length;
+        }
+    }
+
+    private void open() throws IOException {
+        if (channel != null) {
+            return;
+        }
+        createDirectory();
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        index.clear();
+        liveBytes = 0;
+        if (!hasValidFileHeader()) {
+            channel.truncate(0);
+            writeFileHeader(channel);
+            fileSize = FILE_HEADER_SIZE;
+        } else {
+            fileSize = loadIndex();
+            if (fileSize < channel.size()) {
+                //drop the torn record left behind by an interrupted write
+                channel.truncate(fileSize);
+            }
+        }
+    }
+
+    private void createDirectory() {
+        final File directory = file.getParentFile();
+        if (directory != null && !directory.isDirectory()) {
+            directory.mkdirs();
+        }
+    }
+
+    private boolean hasValidFileHeader() throws IOException {
+        if (channel.size() < FILE_HEADER_SIZE) {
+            return false;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        readFully(channel, header, 0);
+        header.flip();
+        return header.getInt() == MAGIC && header.getInt() == VERSION;
+    }
+
+    /**
+     * Scans the whole log and rebuilds the in-memory index.
+     *
+     * @return The position right after the last complete record.
+     */
+    private long loadIndex() throws IOException {
+        final long length = channel.size();
+        long position = FILE_HEADER_SIZE;
+        final DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            input.skipBytes(FILE_HEADER_SIZE);
+            while (position + RECORD_HEADER_SIZE <= length) {
+                final int key = input.readInt();
+                final int recordLength = input.readInt();
+                final long timestamp = input.readLong();
+                final int checksum = input.readInt();
+                if (recordLength == TOMBSTONE) {
+                    if (checksum(key, TOMBSTONE, timestamp, null) != checksum) {
+                        break;
+                    }
+                    forget(key);
+                    position += RECORD_HEADER_SIZE;
+                    continue;
+                }
+                if (recordLength < 0 || position + RECORD_HEADER_SIZE + recordLength > length) {
+                    break;
+                }
+                skipFully(input, recordLength);
+                forget(key);
+                index.put(key, new Location(position + RECORD_HEADER_SIZE, recordLength, timestamp, checksum));
+                liveBytes += RECORD_HEADER_SIZE + recordLength;
+                position += RECORD_HEADER_SIZE + recordLength;
+            }
+        } catch (EOFException e) {
+            //the log ends with an incomplete record, everything before it is still valid
+        } finally {
+            input.close();
+        }
+        return position;
+    }
+
+    /**
+     * Computes the checksum of a record from its header fields and its payload, if any.
+     */
+    private static int checksum(int key, int length, long timestamp, ByteBuffer payload) {
+        final CRC32 crc32 = new CRC32();
+        final ByteBuffer header = ByteBuffer.allocate(CHECKSUM_OFFSET);
+        header.putInt(key).putInt(length).putLong(timestamp);
+        crc32.update(header.array(), 0, CHECKSUM_OFFSET);
+        if (payload != null) {
+            if (payload.hasArray()) {
+                crc32.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            } else {
+                final byte[] chunk = new byte[Math.min(CHECKSUM_BUFFER_SIZE, payload.remaining())];
+                while (payload.hasRemaining()) {
+                    final int count = Math.min(chunk.length, payload.remaining());
+                    payload.get(chunk, 0, count);
+                    crc32.update(chunk, 0, count);
+                }
+            }
+        }
+        return (int) crc32.getValue();
+    }
+
+    private static void writeFileHeader(FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        header.flip();
+        writeFully(channel, header, 0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long readPosition = position;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, readPosition);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of " + channel);
+            }
+            readPosition += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long writePosition = position;
+        while (buffer.hasRemaining()) {
+            writePosition += channel.write(buffer, writePosition);
+        }
+    }
+
+    private static void skipFully(DataInputStream input, int count) throws IOException {
+        int remaining = count;
+        while (remaining > 0) {
+            final int skipped = input.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException();
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Position, size, write time and checksum of a value inside the log.
+     */
+    private static class Location {
+        final long offset;
+        final int length;
+        final long timestamp;
+        final int checksum;
+        boolean verified;
+
+        Location(long offset, int length, long timestamp, int checksum) {
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+            this.checksum = checksum;
+        }
+    }
+}
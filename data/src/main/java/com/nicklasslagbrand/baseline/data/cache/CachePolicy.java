@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+/**
+ * Expiration times of the cached data.
+ *
+ * An entry is fresh for its time to live after being written. Once expired it is stale: it is
+ * retrieved again, but still kept (and can be shown meanwhile) for the max stale time, after which
+ * it is evicted.
+ */
+public class CachePolicy {
+
+    public static final long DEFAULT_USER_TTL_MS = 10 * 60 * 1000;
+    public static final long DEFAULT_USER_LIST_TTL_MS = 10 * 60 * 1000;
+    public static final long DEFAULT_MAX_STALE_MS = 24 * 60 * 60 * 1000;
+
+    private final long userTtlMillis;
+    private final long userListTtlMillis;
+    private final long maxStaleMillis;
+
+    /**
+     * Constructor of the class {@link CachePolicy}.
+     *
+     * @param userTtlMillis Time a cached user is fresh.
+     * @param userListTtlMillis Time the cached user list is fresh.
+     * @param maxStaleMillis Time an expired entry is kept before being evicted.
+     */
+    public CachePolicy(long userTtlMillis, long userListTtlMillis, long maxStaleMillis) {
+        if (userTtlMillis < 0 || userListTtlMillis < 0 || maxStaleMillis < 0) {
+            throw new IllegalArgumentException("Expiration times cannot be negative!!!");
+        }
+        this.userTtlMillis = userTtlMillis;
+        this.userListTtlMillis = userListTtlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    public long getUserTtlMillis() {
+        return userTtlMillis;
+    }
+
+    public long getUserListTtlMillis() {
+        return userListTtlMillis;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the application cache directory into namespaces, one per cache, kept within a single
+ * size budget.
+ *
+ * Every {@link DiskCacheNamespace} is a subdirectory with its own accounting, so clearing one cache
+ * never touches the files of another. Their files all count towards the budget of the manager:
+ * once the namespaces in use grow over it, the least recently used files across namespaces are
+ * deleted in the background. Pinned files count towards the budget but are never deleted, so no
+ * trim is scheduled while every file over the budget is pinned.
+ *
+ * Files are ordered by use with stamps shared by every namespace. After a restart, files of a
+ * namespace opened earlier count as used before the files of the ones opened later, until used
+ * again.
+ *
+ * Older versions of the application kept their caches straight in the cache directory. Those files
+ * are no longer read, nor accounted by any namespace, so they are deleted in the background when
+ * the manager is created.
+ */
+public class DiskCacheManager {
+
+    public static final long DEFAULT_MAX_SIZE_BYTES = 10 * 1024 * 1024;
+
+    private static final String[] LEGACY_FILE_PREFIXES = { "user_", "image_" };
+    private static final String[] LEGACY_FILE_NAMES = {
+            "users.log", "users.log" + AppendOnlyStore.COMPACTION_FILE_SUFFIX, DiskCacheNamespace.JOURNAL_FILE_NAME
+    };
+
+    private final File rootDirectory;
+    private final long maxSizeBytes;
+    private final Executor executor;
+    private final Map<String, DiskCacheNamespace> namespaces = new HashMap<>();
+
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong evictableSize = new AtomicLong();
+    private final AtomicLong lastUseStamp = new AtomicLong();
+    private final AtomicBoolean trimScheduled = new AtomicBoolean();
+
+    /**
+     * Constructor of the class {@link DiskCacheManager} using the default budget.
+     *
+     * @param rootDirectory The cache directory holding the directories of the namespaces.
+     * @param executor {@link Executor} where files are deleted once over budget.
+     */
+    public DiskCacheManager(File rootDirectory, Executor executor) {
+        this(rootDirectory, DEFAULT_MAX_SIZE_BYTES, executor);
+    }
+
+    /**
+     * Constructor of the class {@link DiskCacheManager}.
+     *
+     * @param rootDirectory The cache directory holding the directories of the namespaces.
+     * @param maxSizeBytes The budget, in bytes, of the files of every namespace.
+     * @param executor {@link Executor} where files are deleted once over budget.
+     */
+    public DiskCacheManager(File rootDirectory, long maxSizeBytes, Executor executor) {
+        if (rootDirectory == null || executor == null) {
+            throw new IllegalArgumentException("Invalid null parameter");
+        }
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("The size budget must be positive!!!");
+        }
+        this.rootDirectory = rootDirectory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.executor = executor;
+        executor.execute(this::deleteLegacyFiles);
+    }
+
+    /**
+     * Gets a namespace, creating it the first time it is asked for. Its directory is not touched
+     * until the namespace is used.
+     *
+     * @param name The name of the namespace, which is also the name of its directory.
+     */
+    public synchronized DiskCacheNamespace namespace(String name) {
+        DiskCacheNamespace namespace = namespaces.get(name);
+        if (namespace == null) {
+            namespace = new DiskCacheNamespace(new File(rootDirectory, name), this);
+            namespaces.put(name, namespace);
+        }
+        return namespace;
+    }
+
+    /**
+     * The size, in bytes, of the files of every namespace in use, which the budget applies to.
+     */
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * Deletes the least recently used files across namespaces, other than pinned ones, until the
+     * namespaces in use are within the budget.
+     */
+    public void trim() {
+        trimScheduled.set(false);
+        final List<DiskCacheNamespace> namespacesInUse;
+        synchronized (this) {
+            namespacesInUse = new ArrayList<>(namespaces.values());
+        }
+        while (size.get() > maxSizeBytes) {
+            DiskCacheNamespace leastRecentlyUsed = null;
+            long leastRecentlyUsedStamp = Long.MAX_VALUE;
+            for (DiskCacheNamespace namespace : namespacesInUse) {
+                final long stamp = namespace.leastRecentlyUsedStamp();
+                if (stamp >= 0 && stamp < leastRecentlyUsedStamp) {
+                    leastRecentlyUsed = namespace;
+                    leastRecentlyUsedStamp = stamp;
+                }
+            }
+            if (leastRecentlyUsed == null) {
+                return;
+            }
+            leastRecentlyUsed.deleteLeastRecentlyUsed();
+        }
+    }
+
+    /**
+     * Gets a stamp greater than every one given before, to order the files of every namespace by use.
+     */
+    long nextUseStamp() {
+        return lastUseStamp.incrementAndGet();
+    }
+
+    /**
+     * Accounts a change in the size of a namespace, scheduling a trim once over budget unless no
+     * file can be deleted.
+     *
+     * @param sizeChange The change, in bytes, of the size of the namespace.
+     * @param evictableSizeChange The part of the change, in bytes, in files that are not pinned.
+     */
+    void reportSizeChange(long sizeChange, long evictableSizeChange) {
+        final long newSize = size.addAndGet(sizeChange);
+        final long newEvictableSize = evictableSize.addAndGet(evictableSizeChange);
+        if (newSize > maxSizeBytes && newEvictableSize > 0 && trimScheduled.compareAndSet(false, true)) {
+            executor.execute(this::trim);
+        }
+    }
+
+    /**
+     * Deletes the cache files written straight in the cache directory by older versions.
+     */
+    private void deleteLegacyFiles() {
+        final File[] files = rootDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && isLegacyFile(file.getName())) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    private static boolean isLegacyFile(String name) {
+        for (String prefix : LEGACY_FILE_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String legacyName : LEGACY_FILE_NAMES) {
+            if (name.equals(legacyName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
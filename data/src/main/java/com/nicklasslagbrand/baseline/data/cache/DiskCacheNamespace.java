@@ -0,0 +1,428 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A directory of the cache, owned by a single cache, whose files count towards the size budget
+ * shared by every namespace of its {@link DiskCacheManager}.
+ *
+ * The cache writing to the directory reports every file it writes, reads and deletes. The namespace
+ * keeps the files in access order, stamped with the time they were last used relative to the
+ * files of the other namespaces, and reports its size changes to the manager, which deletes the
+ * least recently used files across namespaces once over budget. Pinned files count towards the
+ * budget but are never deleted, for caches that bound and evict their own content.
+ *
+ * The access order survives restarts through a journal: an append-only log of the reported
+ * operations, rewritten from the current state when the namespace is opened or once it gets too
+ * redundant. Files found in the directory but missing from the journal are taken as the least
+ * recently used ones. Temporary files found then are the leftovers of interrupted writes, and are
+ * deleted. The directory is created and the journal read the first time the namespace is used, so
+ * it should not be used from the main thread.
+ *
+ * Namespaces are created by the {@link DiskCacheManager}.
+ */
+public class DiskCacheNamespace {
+
+    static final String JOURNAL_FILE_NAME = "cache.journal";
+    private static final String JOURNAL_HEADER = "baseline.DiskCacheNamespace 1";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final String WRITE = "W";
+    private static final String READ = "R";
+    private static final String REMOVE = "D";
+    private static final int MAX_REDUNDANT_OPERATIONS = 2000;
+
+    private final File directory;
+    private final DiskCacheManager diskCacheManager;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pinnedNames = new HashSet<>();
+    private long size;
+    private int redundantOperations;
+    private Writer journalWriter;
+
+    /**
+     * Constructor of the class {@link DiskCacheNamespace}.
+     *
+     * @param directory The directory of the namespace.
+     * @param diskCacheManager {@link DiskCacheManager} the namespace shares its budget through.
+     */
+    DiskCacheNamespace(File directory, DiskCacheManager diskCacheManager) {
+        if (directory == null || diskCacheManager == null) {
+            throw new IllegalArgumentException("Invalid null parameter");
+        }
+        this.directory = directory;
+        this.diskCacheManager = diskCacheManager;
+    }
+
+    /**
+     * The directory of the namespace. It may not exist until the namespace is used.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets a file of the namespace, creating the directory if needed.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized File file(String name) {
+        open();
+        return new File(directory, name);
+    }
+
+    /**
+     * Whether a file is in the namespace: found in the directory when the namespace was opened, or
+     * recorded as written since, and not removed. Answered from memory, without checking the disk
+     * or affecting the order of eviction.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized boolean contains(String name) {
+        open();
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Records that a file has been written, or replaced, making it the most recently used one.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized void recordWrite(String name) {
+        open();
+        final long length = new File(directory, name).length();
+        final Entry previousEntry = entries.put(name, new Entry(length, diskCacheManager.nextUseStamp()));
+        long sizeChange = length;
+        if (previousEntry != null) {
+            sizeChange -= previousEntry.length;
+            redundantOperations++;
+        }
+        size += sizeChange;
+        appendToJournal(WRITE + ' ' + name + ' ' + length, true);
+        reportSizeChange(name, sizeChange);
+    }
+
+    /**
+     * Records that a file has been read, making it the most recently used one.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized void recordRead(String name) {
+        open();
+        final Entry entry = entries.get(name);
+        if (entry != null) {
+            entry.lastUsed = diskCacheManager.nextUseStamp();
+            redundantOperations++;
+            // reads only affect the order of eviction, so they are flushed along with the next change
+            appendToJournal(READ + ' ' + name, false);
+        }
+    }
+
+    /**
+     * Records that a file has been deleted.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized void recordRemoval(String name) {
+        open();
+        final Entry entry = entries.remove(name);
+        if (entry != null) {
+            size -= entry.length;
+            redundantOperations += 2;
+            appendToJournal(REMOVE + ' ' + name, true);
+            reportSizeChange(name, -entry.length);
+        }
+    }
+
+    /**
+     * Keeps a file from ever being deleted by the namespace. It still counts towards the budget.
+     *
+     * @param name The name of the file, inside the directory of the namespace.
+     */
+    public synchronized void pin(String name) {
+        if (pinnedNames.add(name) && isOpen()) {
+            final Entry entry = entries.get(name);
+            if (entry != null) {
+                diskCacheManager.reportSizeChange(0, -entry.length);
+            }
+        }
+    }
+
+    /**
+     * The size, in bytes, of the files in the directory.
+     */
+    public synchronized long size() {
+        open();
+        return size;
+    }
+
+    /**
+     * The use stamp of the least recently used file that can be deleted, to be compared with the
+     * ones of the other namespaces of the manager.
+     *
+     * @return the stamp, or -1 if the namespace is not in use or holds no file but pinned ones.
+     */
+    synchronized long leastRecentlyUsedStamp() {
+        if (isOpen()) {
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                if (!pinnedNames.contains(entry.getKey())) {
+                    return entry.getValue().lastUsed;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Deletes the least recently used file, other than pinned ones, if any.
+     */
+    synchronized void deleteLeastRecentlyUsed() {
+        if (!isOpen()) {
+            return;
+        }
+        final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Entry> entry = iterator.next();
+            final String name = entry.getKey();
+            if (!pinnedNames.contains(name)) {
+                final long length = entry.getValue().length;
+                new File(directory, name).delete();
+                size -= length;
+                iterator.remove();
+                redundantOperations += 2;
+                appendToJournal(REMOVE + ' ' + name, true);
+                reportSizeChange(name, -length);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports a change in the size of a file to the manager, which only deletes files not pinned.
+     */
+    private void reportSizeChange(String name, long sizeChange) {
+        diskCacheManager.reportSizeChange(sizeChange, pinnedNames.contains(name) ? 0 : sizeChange);
+    }
+
+    private boolean isOpen() {
+        return journalWriter != null;
+    }
+
+    /**
+     * Loads the entries from the journal and the directory, the first time the namespace is used.
+     */
+    private void open() {
+        if (isOpen()) {
+            return;
+        }
+        if (!directory.isDirectory()) {
+            directory.mkdirs();
+        }
+        final LinkedHashMap<String, Long> journalEntries = new LinkedHashMap<>(16, 0.75f, true);
+        try {
+            readJournal(journalEntries);
+        } catch (IOException e) {
+            journalEntries.clear();
+        }
+
+        // untracked files go first, oldest first, as nothing is known about their use
+        final List<File> untrackedFiles = new ArrayList<>();
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(TEMPORARY_FILE_SUFFIX)) {
+                    // left behind by a write the process died in the middle of
+                    file.delete();
+                } else if (isCacheFile(file) && !journalEntries.containsKey(file.getName())) {
+                    untrackedFiles.add(file);
+                }
+            }
+        }
+        Collections.sort(untrackedFiles, (file, otherFile) -> {
+            final long lastModified = file.lastModified();
+            final long otherLastModified = otherFile.lastModified();
+            return (lastModified < otherLastModified) ? -1 : ((lastModified == otherLastModified) ? 0 : 1);
+        });
+
+        entries.clear();
+        size = 0;
+        for (File file : untrackedFiles) {
+            track(file.getName());
+        }
+        for (String name : journalEntries.keySet()) {
+            track(name);
+        }
+        rebuildJournal();
+
+        long evictableSize = 0;
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            if (!pinnedNames.contains(entry.getKey())) {
+                evictableSize += entry.getValue().length;
+            }
+        }
+        diskCacheManager.reportSizeChange(size, evictableSize);
+    }
+
+    private void track(String name) {
+        final File file = new File(directory, name);
+        if (file.isFile()) {
+            final long length = file.length();
+            entries.put(name, new Entry(length, diskCacheManager.nextUseStamp()));
+            size += length;
+        }
+    }
+
+    private boolean isCacheFile(File file) {
+        final String name = file.getName();
+        return file.isFile()
+                && !name.equals(JOURNAL_FILE_NAME)
+                && !name.endsWith(TEMPORARY_FILE_SUFFIX)
+                && !name.endsWith(AppendOnlyStore.COMPACTION_FILE_SUFFIX);
+    }
+
+    /**
+     * Replays the journal, in order, into the given entries. A torn last line is ignored.
+     */
+    private void readJournal(Map<String, Long> journalEntries) throws IOException {
+        final File journalFile = new File(directory, JOURNAL_FILE_NAME);
+        if (!journalFile.exists()) {
+            return;
+        }
+        final BufferedReader reader = new BufferedReader(new FileReader(journalFile));
+        try {
+            if (!JOURNAL_HEADER.equals(reader.readLine())) {
+                throw new IOException("Unexpected journal header");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] parts = line.split(" ");
+                if (parts.length == 3 && WRITE.equals(parts[0])) {
+                    journalEntries.put(parts[1], Long.parseLong(parts[2]));
+                } else if (parts.length == 2 && READ.equals(parts[0])) {
+                    journalEntries.get(parts[1]);
+                } else if (parts.length == 2 && REMOVE.equals(parts[0])) {
+                    journalEntries.remove(parts[1]);
+                } else {
+                    break;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // torn last line
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Rewrites the journal with a write operation per entry, in access order.
+     */
+    private void rebuildJournal() {
+        closeJournal();
+        final File journalFile = new File(directory, JOURNAL_FILE_NAME);
+        final File temporaryFile = new File(directory, JOURNAL_FILE_NAME + TEMPORARY_FILE_SUFFIX);
+        try {
+            final Writer writer = new BufferedWriter(new FileWriter(temporaryFile));
+            try {
+                writer.write(JOURNAL_HEADER);
+                writer.write('\n');
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(WRITE + ' ' + entry.getKey() + ' ' + entry.getValue().length);
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+            if (!temporaryFile.renameTo(journalFile)) {
+                throw new IOException("Could not rename " + temporaryFile + " to " + journalFile);
+            }
+            journalWriter = new BufferedWriter(new FileWriter(journalFile, true));
+        } catch (IOException e) {
+            e.printStackTrace();
+            // keeps working in memory, without a journal
+            journalWriter = new NullWriter();
+        }
+        redundantOperations = 0;
+    }
+
+    private void appendToJournal(String operation, boolean flush) {
+        try {
+            journalWriter.write(operation);
+            journalWriter.write('\n');
+            if (flush) {
+                journalWriter.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        if (redundantOperations >= MAX_REDUNDANT_OPERATIONS && redundantOperations >= entries.size()) {
+            rebuildJournal();
+        }
+    }
+
+    private void closeJournal() {
+        if (journalWriter != null) {
+            try {
+                journalWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journalWriter = null;
+        }
+    }
+
+    /**
+     * Length of a file and the stamp of its last use.
+     */
+    private static class Entry {
+        final long length;
+        long lastUsed;
+
+        Entry(long length, long lastUsed) {
+            this.length = length;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Journal used when the real one cannot be written.
+     */
+    private static class NullWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int count) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory index of the write time and eviction time of cached entries.
+ *
+ * Eviction times are kept in a priority queue, so finding the entries to evict only looks at the
+ * ones that are due. Replaced and removed entries are left in the queue and skipped when polled.
+ */
+class ExpiryIndex {
+
+    private static final int MIN_QUEUE_SIZE_TO_PURGE = 64;
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final PriorityQueue<Entry> evictionQueue = new PriorityQueue<>();
+
+    /**
+     * Adds an entry, replacing any previous one for the same key.
+     *
+     * @param key The key of the entry.
+     * @param writtenAt The time, in millis, the entry was written.
+     * @param evictAt The time, in millis, the entry has to be evicted.
+     */
+    synchronized void put(int key, long writtenAt, long evictAt) {
+        final Entry entry = new Entry(key, writtenAt, evictAt);
+        entries.put(key, entry);
+        evictionQueue.add(entry);
+        if (evictionQueue.size() > 2 * entries.size() + MIN_QUEUE_SIZE_TO_PURGE) {
+            purgeEvictionQueue();
+        }
+    }
+
+    /**
+     * Gets the time an entry was written.
+     *
+     * @return The time, in millis, or -1 if there is no entry for the key.
+     */
+    synchronized long writtenAt(int key) {
+        final Entry entry = entries.get(key);
+        return (entry != null) ? entry.writtenAt : -1;
+    }
+
+    synchronized boolean contains(int key) {
+        return entries.containsKey(key);
+    }
+
+    synchronized void remove(int key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes every entry that has to be evicted at a given time.
+     *
+     * @param now The current time, in millis.
+     * @return The keys of the removed entries.
+     */
+    synchronized List<Integer> pollEvictable(long now) {
+        List<Integer> evictable = null;
+        while (!evictionQueue.isEmpty() && evictionQueue.peek().evictAt <= now) {
+            final Entry entry = evictionQueue.poll();
+            if (entries.get(entry.key) == entry) {
+                entries.remove(entry.key);
+                if (evictable == null) {
+                    evictable = new ArrayList<>();
+                }
+                evictable.add(entry.key);
+            }
+        }
+        return (evictable != null) ? evictable : new ArrayList<Integer>(0);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        evictionQueue.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops the replaced and removed entries from the eviction queue.
+     */
+    private void purgeEvictionQueue() {
+        evictionQueue.clear();
+        evictionQueue.addAll(entries.values());
+    }
+
+    private static class Entry implements Comparable<Entry> {
+        final int key;
+        final long writtenAt;
+        final long evictAt;
+
+        Entry(int key, long writtenAt, long evictAt) {
+            this.key = key;
+            this.writtenAt = writtenAt;
+            this.evictAt = evictAt;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return (evictAt < other.evictAt) ? -1 : ((evictAt == other.evictAt) ? 0 : 1);
+        }
+    }
+}
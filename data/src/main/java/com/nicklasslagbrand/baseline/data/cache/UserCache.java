@@ -15,8 +15,11 @@
  */
 package com.nicklasslagbrand.baseline.data.cache;
 
+import android.support.annotation.Nullable;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.net.ResponseValidators;
 import io.reactivex.Observable;
+import java.util.List;
 
 /**
  * An interface representing a user Cache.
@@ -30,14 +33,44 @@ public interface UserCache {
     Observable<UserEntity> get(final int userId);
 
     /**
-     * Puts and element into the cache.
+     * Puts and element into the cache, replacing the cached one with the same id if any.
      *
      * @param userEntity Element to insert in the cache.
      */
     void put(UserEntity userEntity);
 
     /**
-     * Checks if an element (User) exists in the cache.
+     * Gets an {@link Observable} which will emit the cached List of {@link UserEntity}.
+     */
+    Observable<List<UserEntity>> getAll();
+
+    /**
+     * Puts a whole list into the cache, replacing the cached list if any. List elements are kept
+     * apart from the elements put one by one, so they never count as cached users.
+     *
+     * @param userEntities List to insert in the cache.
+     * @param validators The {@link ResponseValidators} the list was downloaded with, or null.
+     */
+    void putAll(List<UserEntity> userEntities, @Nullable ResponseValidators validators);
+
+    /**
+     * Gets the validators the cached user list was downloaded with, to revalidate it through a
+     * conditional request. They are read from disk, so it should not be called from the main thread.
+     *
+     * @return the validators, or null if there is no cached list, or it has none.
+     */
+    @Nullable
+    ResponseValidators getListValidators();
+
+    /**
+     * Marks the cached user list as written now, once the server has reported it is not modified,
+     * so it is fresh again for its whole time to live.
+     */
+    void refreshList();
+
+    /**
+     * Checks if an element (User) exists in the cache. Only elements put one by one count, not
+     * the elements of the cached list.
      *
      * @param userId The id used to look for inside the cache.
      * @return true if the element is cached, otherwise false.
@@ -45,14 +78,37 @@ public interface UserCache {
     boolean isCached(final int userId);
 
     /**
-     * Checks if the cache is expired.
+     * Checks if the cached element (User) is expired, or not cached at all. An expired element is
+     * kept for a while, so it can still be shown while a fresh one is retrieved.
+     *
+     * @param userId The id of the element to check.
+     * @return true, the element is expired, otherwise false.
+     */
+    boolean isExpired(final int userId);
+
+    /**
+     * Checks if the user list exists in the cache.
+     *
+     * @return true if the list is cached, otherwise false.
+     */
+    boolean isListCached();
+
+    /**
+     * Checks if the cached user list is expired. An expired list is kept, so it can still be shown
+     * while a fresh one is retrieved.
      *
-     * @return true, the cache is expired, otherwise false.
+     * @return true, the list is expired, otherwise false.
      */
-    boolean isExpired();
+    boolean isListExpired();
 
     /**
      * Evict all elements of the cache.
      */
     void evictAll();
+
+    /**
+     * Writes every pending change to disk, blocking until done. Meant to be called before the
+     * process goes away: the application calls it, off the main thread, once its UI is hidden.
+     */
+    void flush();
 }
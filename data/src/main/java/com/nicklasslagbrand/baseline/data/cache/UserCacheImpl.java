@@ -15,14 +15,20 @@
  */
 package com.nicklasslagbrand.baseline.data.cache;
 
-import android.content.Context;
-
-import com.nicklasslagbrand.baseline.data.cache.serializer.Serializer;
+import com.nicklasslagbrand.baseline.data.cache.serializer.UserEntitySerializer;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
 import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+import com.nicklasslagbrand.baseline.data.net.ResponseValidators;
 import com.nicklasslagbrand.baseline.domain.executor.ThreadExecutor;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -31,52 +37,88 @@ import io.reactivex.Observable;
 
 /**
  * {@link UserCache} implementation.
+ *
+ * Every entry keeps the time it was written, so entries expire one by one following the
+ * {@link CachePolicy}. Expired entries are evicted incrementally, once they have been stale for
+ * longer than allowed.
+ *
+ * Whether an entry is cached and fresh is answered from memory only: the write times of the stored
+ * entries are loaded in the background when the cache is created, and kept up to date as entries
+ * are written, so deciding between the disk and the network never waits for disk I/O. Until the
+ * write times are loaded, stored entries are reported as not cached.
+ *
+ * The user list is kept apart from the user details, as a single entry holding every list element:
+ * list elements only carry a summary of each user, so they are never served, nor reported as
+ * cached, as the details of a user. The entry starts with the validators the list was downloaded
+ * with, so it can be revalidated with a conditional request after a restart; once revalidated it
+ * is rewritten as is, with a new write time.
+ *
+ * Writes go through a {@link WriteBehindQueue}, which coalesces them and stores them in batches,
+ * syncing the store once per batch and reporting its size to its {@link DiskCacheNamespace}. Stored
+ * entries are checksummed, so a corrupted entry reads as missing instead of being deserialized, and
+ * is no longer reported as cached from then on.
  */
 @Singleton
 public class UserCacheImpl implements UserCache {
 
-    private static final String SETTINGS_FILE_NAME = "com.valtech.baseline.SETTINGS";
-    private static final String SETTINGS_KEY_LAST_CACHE_UPDATE = "last_cache_update";
+    private static final String NAMESPACE = "users";
+    private static final String DEFAULT_FILE_NAME = "users.log";
+    private static final long MEMORY_CACHE_SIZE_BYTES = 512 * 1024;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final int NO_VALUE = -1;
 
-    private static final String DEFAULT_FILE_NAME = "user_";
-    private static final long EXPIRATION_TIME = 60 * 10 * 1000;
+    /**
+     * Key under which the elements of the cached user list are stored, in order. No user has it as
+     * id.
+     */
+    private static final int USER_LIST_KEY = Integer.MIN_VALUE;
 
-    private final Context context;
-    private final File cacheDir;
-    private final Serializer serializer;
-    private final FileManager fileManager;
+    private final AppendOnlyStore store;
+    private final UserEntitySerializer serializer;
+    private final CachePolicy cachePolicy;
     private final ThreadExecutor threadExecutor;
+    private final UserMemoryCache memoryCache;
+    private final ExpiryIndex expiryIndex;
+    private final WriteBehindQueue writeQueue;
+
+    private boolean expiryIndexLoaded;
 
     /**
      * Constructor of the class {@link UserCacheImpl}.
      *
-     * @param context A
-     * @param serializer {@link Serializer} for object serialization.
-     * @param fileManager {@link FileManager} for saving serialized objects to the file system.
+     * @param diskCacheManager {@link DiskCacheManager} providing the namespace where users are stored.
+     * @param serializer {@link UserEntitySerializer} for object serialization.
+     * @param cachePolicy {@link CachePolicy} with the expiration times of the cached entries.
      */
     @Inject
-    UserCacheImpl(Context context, Serializer serializer, FileManager fileManager, ThreadExecutor executor) {
-        if (context == null || serializer == null || fileManager == null || executor == null) {
+    UserCacheImpl(DiskCacheManager diskCacheManager, UserEntitySerializer serializer, CachePolicy cachePolicy,
+            ThreadExecutor executor) {
+        if (diskCacheManager == null || serializer == null || cachePolicy == null || executor == null) {
             throw new IllegalArgumentException("Invalid null parameter");
         }
-        this.context = context.getApplicationContext();
-        this.cacheDir = this.context.getCacheDir();
+        final DiskCacheNamespace diskCacheNamespace = diskCacheManager.namespace(NAMESPACE);
+        this.store = new AppendOnlyStore(new File(diskCacheNamespace.getDirectory(), DEFAULT_FILE_NAME));
         this.serializer = serializer;
-        this.fileManager = fileManager;
+        this.cachePolicy = cachePolicy;
         this.threadExecutor = executor;
+        this.memoryCache = new UserMemoryCache(MEMORY_CACHE_SIZE_BYTES);
+        this.expiryIndex = new ExpiryIndex();
+        // users expire on their own, so the store only counts towards the disk budget
+        diskCacheNamespace.pin(DEFAULT_FILE_NAME);
+        this.writeQueue = new WriteBehindQueue(store, executor, true,
+                () -> diskCacheNamespace.recordWrite(DEFAULT_FILE_NAME));
+        executeAsynchronously(this::loadExpiryIndex);
     }
 
     @Override
     public Observable<UserEntity> get(final int userId) {
         return Observable.create(emitter -> {
-            final File userEntityFile = UserCacheImpl.this.buildFile(userId);
-            final String fileContent = UserCacheImpl.this.fileManager.readFileContent(userEntityFile);
-            final UserEntity userEntity = UserCacheImpl.this.serializer.deserialize(fileContent, UserEntity.class);
-
+            final UserEntity userEntity = UserCacheImpl.this.read(userId);
             if (userEntity != null) {
                 emitter.onNext(userEntity);
                 emitter.onComplete();
             } else {
+                UserCacheImpl.this.forgetUnreadable(userId);
                 emitter.onError(new UserNotFoundException());
             }
         });
@@ -85,116 +127,350 @@ public class UserCacheImpl implements UserCache {
     @Override
     public void put(UserEntity userEntity) {
         if (userEntity != null) {
-            final File userEntityFile = this.buildFile(userEntity.getUserId());
-            if (!isCached(userEntity.getUserId())) {
-                final String jsonString = serializer.serialize(userEntity, UserEntity.class);
+            upsert(userEntity, System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public Observable<List<UserEntity>> getAll() {
+        return Observable.create(emitter -> {
+            final ByteBuffer userListBuffer = UserCacheImpl.this.readBuffer(USER_LIST_KEY);
+            final List<UserEntity> userEntities = (userListBuffer != null)
+                    ? UserCacheImpl.this.deserializeList(userListBuffer)
+                    : null;
 
-                executeAsynchronously(new CacheWriter(fileManager, userEntityFile, jsonString));
-                setLastCacheUpdateTimeMillis();
+            if (userEntities != null) {
+                emitter.onNext(userEntities);
+                emitter.onComplete();
+            } else {
+                UserCacheImpl.this.forgetUnreadable(USER_LIST_KEY);
+                emitter.onError(new UserNotFoundException());
             }
+        });
+    }
+
+    @Override
+    public void putAll(List<UserEntity> userEntities, ResponseValidators validators) {
+        if (userEntities != null) {
+            final long writtenAt = System.currentTimeMillis();
+            writeQueue.put(USER_LIST_KEY, serializeList(userEntities, validators), writtenAt);
+            track(USER_LIST_KEY, writtenAt);
         }
     }
 
     @Override
-    public boolean isCached(int userId) {
-        final File userEntityFile = buildFile(userId);
-        return fileManager.exists(userEntityFile);
+    public ResponseValidators getListValidators() {
+        final ByteBuffer userListBuffer = readBufferQuietly(USER_LIST_KEY);
+        final ResponseValidators validators = (userListBuffer != null) ? readValidators(userListBuffer) : null;
+        return (validators != null && !validators.isEmpty()) ? validators : null;
     }
 
     @Override
-    public boolean isExpired() {
-        long currentTime = System.currentTimeMillis();
-        long lastUpdateTime = getLastCacheUpdateTimeMillis();
+    public void refreshList() {
+        final ByteBuffer userListBuffer = readBufferQuietly(USER_LIST_KEY);
+        if (userListBuffer != null) {
+            final byte[] userList = new byte[userListBuffer.remaining()];
+            userListBuffer.get(userList);
+            final long writtenAt = System.currentTimeMillis();
+            writeQueue.put(USER_LIST_KEY, userList, writtenAt);
+            track(USER_LIST_KEY, writtenAt);
+        }
+    }
 
-        boolean expired = ((currentTime - lastUpdateTime) > EXPIRATION_TIME);
+    @Override
+    public boolean isCached(int userId) {
+        evictExpired();
+        return userId != USER_LIST_KEY && (memoryCache.contains(userId) || expiryIndex.contains(userId));
+    }
 
-        if (expired) {
-            evictAll();
-        }
+    @Override
+    public boolean isExpired(int userId) {
+        evictExpired();
+        return !isFresh(userId);
+    }
 
-        return expired;
+    @Override
+    public boolean isListCached() {
+        evictExpired();
+        return expiryIndex.contains(USER_LIST_KEY);
+    }
+
+    @Override
+    public boolean isListExpired() {
+        evictExpired();
+        return !isFresh(USER_LIST_KEY);
     }
 
     @Override
     public void evictAll() {
-        executeAsynchronously(new CacheEvictor(fileManager, cacheDir));
+        memoryCache.evictAll();
+        synchronized (expiryIndex) {
+            expiryIndex.clear();
+            expiryIndexLoaded = true;
+        }
+        writeQueue.clear();
+    }
+
+    @Override
+    public void flush() {
+        writeQueue.flush();
+    }
+
+    /**
+     * Inserts an element, or replaces the cached one. The write is skipped only when the cached
+     * element, in memory or stored, is still fresh and equal to the new one, as there is nothing to
+     * update then. Users carry no version of their own, so equality is the version check.
+     */
+    private void upsert(UserEntity userEntity, long writtenAt) {
+        final int userId = userEntity.getUserId();
+        final UserEntity cachedUserEntity = readQuietly(userId);
+        memoryCache.put(userEntity);
+        if (!userEntity.equals(cachedUserEntity) || isExpired(userId)) {
+            writeQueue.put(userId, serializer.serialize(userEntity), writtenAt);
+            track(userId, writtenAt);
+        }
     }
 
     /**
-     * Build a file, used to be inserted in the disk cache.
+     * Reads an element from memory or, when not there, from the disk store.
      *
-     * @param userId The id user to build the file.
-     * @return A valid file.
+     * @param userId The id of the element to read.
+     * @return the element, or null if it is not cached.
      */
-    private File buildFile(int userId) {
-        String fileNameBuilder = cacheDir.getPath() +
-                File.separator +
-                DEFAULT_FILE_NAME +
-                userId;
+    private UserEntity read(int userId) throws IOException {
+        final UserEntity memoryUserEntity = memoryCache.get(userId);
+        if (memoryUserEntity != null) {
+            return memoryUserEntity;
+        }
 
-        return new File(fileNameBuilder);
+        final ByteBuffer userEntityBuffer = readBuffer(userId);
+        final UserEntity userEntity = (userEntityBuffer != null) ? serializer.deserialize(userEntityBuffer) : null;
+        if (userEntity != null) {
+            memoryCache.put(userEntity);
+        }
+        return userEntity;
     }
 
     /**
-     * Set in millis, the last time the cache was accessed.
+     * Reads an element like {@link #read(int)}, taking an element that cannot be read as not cached.
      */
-    private void setLastCacheUpdateTimeMillis() {
-        final long currentMillis = System.currentTimeMillis();
-        fileManager.writeToPreferences(context, SETTINGS_FILE_NAME, SETTINGS_KEY_LAST_CACHE_UPDATE,
-                                            currentMillis);
+    private UserEntity readQuietly(int userId) {
+        try {
+            return read(userId);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 
     /**
-     * Get in millis, the last time the cache was accessed.
+     * Reads the value of an entry, either waiting in the write queue or already stored.
      */
-    private long getLastCacheUpdateTimeMillis() {
-        return fileManager.getFromPreferences(context, SETTINGS_FILE_NAME, SETTINGS_KEY_LAST_CACHE_UPDATE);
+    private ByteBuffer readBuffer(int key) throws IOException {
+        final ByteBuffer pending = writeQueue.getPending(key);
+        if (pending != null) {
+            return pending;
+        }
+        return writeQueue.isPendingRemoval(key) ? null : store.get(key);
     }
 
     /**
-     * Executes a {@link Runnable} in another Thread.
+     * Reads the value of an entry like {@link #readBuffer(int)}, taking an entry that cannot be read
+     * as not cached.
+     */
+    private ByteBuffer readBufferQuietly(int key) {
+        try {
+            return readBuffer(key);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Serializes a user list: its validators, the ETag and then the Last-Modified value, followed by
+     * its elements, in order. Every validator and element is prefixed by its length, and a missing
+     * validator is stored as its length only, {@link #NO_VALUE}.
+     */
+    private byte[] serializeList(List<UserEntity> userEntities, ResponseValidators validators) {
+        final byte[] etag = encode((validators != null) ? validators.getEtag() : null);
+        final byte[] lastModified = encode((validators != null) ? validators.getLastModified() : null);
+        final List<byte[]> elements = new ArrayList<>(userEntities.size());
+        int length = lengthOf(etag) + lengthOf(lastModified);
+        for (UserEntity userEntity : userEntities) {
+            if (userEntity != null) {
+                final byte[] element = serializer.serialize(userEntity);
+                elements.add(element);
+                length += lengthOf(element);
+            }
+        }
+        final ByteBuffer userList = ByteBuffer.allocate(length);
+        putValue(userList, etag);
+        putValue(userList, lastModified);
+        for (byte[] element : elements) {
+            putValue(userList, element);
+        }
+        return userList.array();
+    }
+
+    /**
+     * Reads every element of a stored user list.
      *
-     * @param runnable {@link Runnable} to execute
+     * @param userListBuffer The list, as written by {@link #serializeList(List, ResponseValidators)}.
+     * @return the elements, or null if any of them cannot be read.
      */
-    private void executeAsynchronously(Runnable runnable) {
-        this.threadExecutor.execute(runnable);
+    private List<UserEntity> deserializeList(ByteBuffer userListBuffer) {
+        if (readValidators(userListBuffer) == null) {
+            return null;
+        }
+        final List<UserEntity> userEntities = new ArrayList<>();
+        while (userListBuffer.hasRemaining()) {
+            final int length = (userListBuffer.remaining() >= 4) ? userListBuffer.getInt() : -1;
+            if (length < 0 || length > userListBuffer.remaining()) {
+                return null;
+            }
+            final ByteBuffer element = userListBuffer.slice();
+            element.limit(length);
+            userListBuffer.position(userListBuffer.position() + length);
+            final UserEntity userEntity = serializer.deserialize(element);
+            if (userEntity == null) {
+                return null;
+            }
+            userEntities.add(userEntity);
+        }
+        return userEntities;
     }
 
     /**
-     * {@link Runnable} class for writing to disk.
+     * Reads the validators a stored user list starts with, moving the buffer past them.
+     *
+     * @return the validators, or null if they cannot be read.
      */
-    private static class CacheWriter implements Runnable {
-        private final FileManager fileManager;
-        private final File fileToWrite;
-        private final String fileContent;
+    private static ResponseValidators readValidators(ByteBuffer userListBuffer) {
+        try {
+            final String etag = getValue(userListBuffer);
+            final String lastModified = getValue(userListBuffer);
+            return new ResponseValidators(etag, lastModified);
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return (value != null) ? value.getBytes(CHARSET) : null;
+    }
 
-        CacheWriter(FileManager fileManager, File fileToWrite, String fileContent) {
-            this.fileManager = fileManager;
-            this.fileToWrite = fileToWrite;
-            this.fileContent = fileContent;
+    private static int lengthOf(byte[] value) {
+        return 4 + ((value != null) ? value.length : 0);
+    }
+
+    private static void putValue(ByteBuffer buffer, byte[] value) {
+        if (value != null) {
+            buffer.putInt(value.length).put(value);
+        } else {
+            buffer.putInt(NO_VALUE);
         }
+    }
 
-        @Override
-        public void run() {
-            fileManager.writeToFile(fileToWrite, fileContent);
+    /**
+     * Reads a string prefixed by its length, as written by {@link #putValue(ByteBuffer, byte[])}.
+     *
+     * @throws BufferUnderflowException if the buffer does not hold such a string.
+     */
+    private static String getValue(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length == NO_VALUE) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
         }
+        final byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, CHARSET);
+    }
+
+    /**
+     * Checks if an entry was written within its time to live.
+     */
+    private boolean isFresh(int key) {
+        final long writtenAt = expiryIndex.writtenAt(key);
+        return writtenAt >= 0 && (System.currentTimeMillis() - writtenAt) <= timeToLive(key);
+    }
+
+    /**
+     * Records the time an entry was written, scheduling its eviction.
+     */
+    private void track(int key, long writtenAt) {
+        expiryIndex.put(key, writtenAt, evictionTime(key, writtenAt));
+    }
+
+    private long timeToLive(int key) {
+        return (key == USER_LIST_KEY) ? cachePolicy.getUserListTtlMillis() : cachePolicy.getUserTtlMillis();
+    }
+
+    private long evictionTime(int key, long writtenAt) {
+        return writtenAt + timeToLive(key) + cachePolicy.getMaxStaleMillis();
     }
 
     /**
-     * {@link Runnable} class for evicting all the cached files
+     * Forgets an entry reported as cached that could not be read, e.g. because its stored value is
+     * corrupted, so it is retrieved from the network the next time instead.
      */
-    private static class CacheEvictor implements Runnable {
-        private final FileManager fileManager;
-        private final File cacheDir;
+    private void forgetUnreadable(int key) {
+        if (expiryIndex.contains(key)) {
+            expiryIndex.remove(key);
+            memoryCache.remove(key);
+            writeQueue.remove(key);
+        }
+    }
 
-        CacheEvictor(FileManager fileManager, File cacheDir) {
-            this.fileManager = fileManager;
-            this.cacheDir = cacheDir;
+    /**
+     * Evicts the entries that have been stale for longer than allowed.
+     */
+    private void evictExpired() {
+        final List<Integer> evictable = expiryIndex.pollEvictable(System.currentTimeMillis());
+        if (!evictable.isEmpty()) {
+            for (Integer key : evictable) {
+                memoryCache.remove(key);
+                writeQueue.remove(key);
+            }
         }
+    }
 
-        @Override
-        public void run() {
-            fileManager.clearDirectory(cacheDir);
+    /**
+     * Fills the {@link ExpiryIndex} with the write times of the stored entries. Runs once, in the
+     * background, and never replaces the write time of an entry written in the meantime.
+     */
+    private void loadExpiryIndex() {
+        final Map<Integer, Long> timestamps;
+        try {
+            timestamps = store.timestamps();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
         }
+        synchronized (expiryIndex) {
+            if (!expiryIndexLoaded) {
+                for (Map.Entry<Integer, Long> timestamp : timestamps.entrySet()) {
+                    final int key = timestamp.getKey();
+                    if (!expiryIndex.contains(key)) {
+                        final long writtenAt = timestamp.getValue();
+                        expiryIndex.put(key, writtenAt, evictionTime(key, writtenAt));
+                    }
+                }
+                expiryIndexLoaded = true;
+            }
+        }
+        evictExpired();
+    }
+
+    /**
+     * Executes a {@link Runnable} in another Thread.
+     *
+     * @param runnable {@link Runnable} to execute
+     */
+    private void executeAsynchronously(Runnable runnable) {
+        this.threadExecutor.execute(runnable);
     }
 }
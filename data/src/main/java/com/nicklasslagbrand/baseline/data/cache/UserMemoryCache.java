@@ -0,0 +1,169 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory tier for {@link UserEntity} objects, kept in least recently used order.
+ * The bound is expressed in (estimated) bytes rather than in number of entries, so a few users with
+ * very long descriptions cannot push the whole cache out of memory.
+ */
+class UserMemoryCache {
+
+    private static final int ENTITY_OVERHEAD_BYTES = 48;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxSizeBytes;
+
+    private long sizeBytes;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Constructor of the class {@link UserMemoryCache}.
+     *
+     * @param maxSizeBytes The maximum (estimated) amount of bytes the cached entities may take.
+     */
+    UserMemoryCache(long maxSizeBytes) {
+        if (maxSizeBytes <= 0) {
+            throw new IllegalArgumentException("The max size must be greater than zero");
+        }
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Gets a cached {@link UserEntity} and marks it as the most recently used one.
+     *
+     * @param userId The user id to look for.
+     * @return The cached {@link UserEntity} or null if it is not in memory.
+     */
+    synchronized UserEntity get(int userId) {
+        final Entry entry = entries.get(userId);
+        if (entry != null) {
+            hitCount++;
+            return entry.userEntity;
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Puts a {@link UserEntity} into memory, evicting the least recently used ones if the cache
+     * grows over its limit.
+     *
+     * @param userEntity Element to insert in the cache.
+     */
+    synchronized void put(UserEntity userEntity) {
+        final int size = sizeOf(userEntity);
+        if (size > maxSizeBytes) {
+            remove(userEntity.getUserId());
+            return;
+        }
+        final Entry previous = entries.put(userEntity.getUserId(), new Entry(userEntity, size));
+        if (previous != null) {
+            sizeBytes -= previous.size;
+        }
+        sizeBytes += size;
+        trimToSize();
+    }
+
+    /**
+     * Checks if an element is in memory without affecting its recency nor the hit/miss counters.
+     *
+     * @param userId The id used to look for inside the cache.
+     * @return true if the element is in memory, otherwise false.
+     */
+    synchronized boolean contains(int userId) {
+        return entries.containsKey(userId);
+    }
+
+    /**
+     * Removes an element from memory.
+     *
+     * @param userId The id of the element to remove.
+     */
+    synchronized void remove(int userId) {
+        final Entry removed = entries.remove(userId);
+        if (removed != null) {
+            sizeBytes -= removed.size;
+        }
+    }
+
+    /**
+     * Evict all elements kept in memory.
+     */
+    synchronized void evictAll() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    synchronized long size() {
+        return sizeBytes;
+    }
+
+    synchronized long hitCount() {
+        return hitCount;
+    }
+
+    synchronized long missCount() {
+        return missCount;
+    }
+
+    synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    private void trimToSize() {
+        final Iterator<Map.Entry<Integer, Entry>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > maxSizeBytes && iterator.hasNext()) {
+            final Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            sizeBytes -= eldest.size;
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Estimates the amount of memory taken by a {@link UserEntity}.
+     */
+    static int sizeOf(UserEntity userEntity) {
+        return ENTITY_OVERHEAD_BYTES
+                + sizeOf(userEntity.getCoverUrl())
+                + sizeOf(userEntity.getFullname())
+                + sizeOf(userEntity.getDescription())
+                + sizeOf(userEntity.getEmail());
+    }
+
+    private static int sizeOf(String value) {
+        return (value != null) ? STRING_OVERHEAD_BYTES + value.length() * 2 : 0;
+    }
+
+    private static class Entry {
+        final UserEntity userEntity;
+        final int size;
+
+        Entry(UserEntity userEntity, int size) {
+            this.userEntity = userEntity;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Write-behind queue in front of an {@link AppendOnlyStore}.
+ *
+ * Changes are queued and written in batches by a single drain task at a time, so a burst of puts
+ * costs one task instead of one per put. While a change is pending, a newer change for the same
+ * key replaces it (last write wins) and moves it to the end of the batch. Pending values can be
+ * read back before they reach the store.
+ *
+ * When asked to, the store is synced once at the end of every batch, so the cost of forcing the
+ * writes to the storage device is shared by all the changes of the batch.
+ */
+class WriteBehindQueue {
+
+    private final AppendOnlyStore store;
+    private final Executor executor;
+    private final boolean syncBatches;
+    private final Runnable batchListener;
+
+    private final Object lock = new Object();
+    private final Object drainLock = new Object();
+    private Map<Integer, PendingWrite> pendingWrites = new LinkedHashMap<>();
+    private Map<Integer, PendingWrite> writingWrites = Collections.emptyMap();
+    private boolean clearPending;
+    private boolean drainScheduled;
+
+    /**
+     * Constructor of the class {@link WriteBehindQueue}.
+     *
+     * @param store The {@link AppendOnlyStore} changes are written to.
+     * @param executor {@link Executor} where batches are written.
+     * @param syncBatches Whether to sync the store after writing each batch.
+     * @param batchListener {@link Runnable} run after writing each batch, or null.
+     */
+    WriteBehindQueue(AppendOnlyStore store, Executor executor, boolean syncBatches, Runnable batchListener) {
+        this.store = store;
+        this.executor = executor;
+        this.syncBatches = syncBatches;
+        this.batchListener = batchListener;
+    }
+
+    /**
+     * Queues a value to be stored for a key.
+     *
+     * @param key The key to store the value for.
+     * @param value The bytes to store.
+     * @param timestamp The time, in millis, the value was written.
+     */
+    void put(int key, byte[] value, long timestamp) {
+        enqueue(key, new PendingWrite(value, timestamp));
+    }
+
+    /**
+     * Queues the removal of the value stored for a key.
+     */
+    void remove(int key) {
+        enqueue(key, new PendingWrite(null, 0));
+    }
+
+    /**
+     * Drops every pending change and queues the removal of every stored value.
+     */
+    void clear() {
+        synchronized (lock) {
+            pendingWrites.clear();
+            clearPending = true;
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Reads the value of a pending change.
+     *
+     * @param key The key to look for.
+     * @return A read-only buffer over the pending value, or null if there is no pending value for the
+     * key. Check {@link #isPendingRemoval(int)} to tell a pending removal apart.
+     */
+    ByteBuffer getPending(int key) {
+        final PendingWrite pendingWrite = findPending(key);
+        return (pendingWrite != null && pendingWrite.value != null)
+                ? ByteBuffer.wrap(pendingWrite.value).asReadOnlyBuffer()
+                : null;
+    }
+
+    /**
+     * Checks if the value of a key is going to be removed, or the whole store cleared.
+     */
+    boolean isPendingRemoval(int key) {
+        synchronized (lock) {
+            final PendingWrite pendingWrite = findPending(key);
+            return (pendingWrite != null) ? pendingWrite.value == null : clearPending;
+        }
+    }
+
+    /**
+     * Writes every pending change to the store, in the calling thread.
+     */
+    void flush() {
+        drain();
+    }
+
+    private void enqueue(int key, PendingWrite pendingWrite) {
+        synchronized (lock) {
+            pendingWrites.remove(key);
+            pendingWrites.put(key, pendingWrite);
+            scheduleDrain();
+        }
+    }
+
+    private PendingWrite findPending(int key) {
+        synchronized (lock) {
+            final PendingWrite pendingWrite = pendingWrites.get(key);
+            return (pendingWrite != null) ? pendingWrite : writingWrites.get(key);
+        }
+    }
+
+    private void scheduleDrain() {
+        if (!drainScheduled) {
+            drainScheduled = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Writes batches of pending changes until there are none left.
+     */
+    private void drain() {
+        synchronized (drainLock) {
+            while (true) {
+                final Map<Integer, PendingWrite> batch;
+                final boolean clear;
+                synchronized (lock) {
+                    if (pendingWrites.isEmpty() && !clearPending) {
+                        drainScheduled = false;
+                        return;
+                    }
+                    batch = pendingWrites;
+                    clear = clearPending;
+                    pendingWrites = new LinkedHashMap<>();
+                    writingWrites = batch;
+                    clearPending = false;
+                }
+                try {
+                    write(clear, batch);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                } finally {
+                    synchronized (lock) {
+                        writingWrites = Collections.emptyMap();
+                    }
+                }
+            }
+        }
+    }
+
+    private void write(boolean clear, Map<Integer, PendingWrite> batch) throws IOException {
+        if (clear) {
+            store.clear();
+        }
+        for (Map.Entry<Integer, PendingWrite> entry : batch.entrySet()) {
+            final PendingWrite pendingWrite = entry.getValue();
+            if (pendingWrite.value != null) {
+                store.put(entry.getKey(), pendingWrite.value, pendingWrite.timestamp);
+            } else {
+                store.remove(entry.getKey());
+            }
+        }
+        if (syncBatches) {
+            store.sync();
+        }
+        if (batchListener != null) {
+            batchListener.run();
+        }
+    }
+
+    /**
+     * A value waiting to be written, or a removal when the value is null.
+     */
+    private static class PendingWrite {
+        final byte[] value;
+        final long timestamp;
+
+        PendingWrite(byte[] value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
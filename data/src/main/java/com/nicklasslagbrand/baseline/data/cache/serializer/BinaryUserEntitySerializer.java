@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache.serializer;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Compact binary {@link UserEntitySerializer}.
+ *
+ * Layout (version 1): a version byte, the user id and the followers as zigzag varints, then the
+ * cover url, full name, description and email as varint length prefixed UTF-8 strings, where a
+ * length of 0 stands for null and any other length is the byte count plus one.
+ *
+ * Elements written by older versions of the cache as json are still accepted: json text never
+ * starts with a byte in the range reserved for versions, so those are handed over to
+ * {@link JsonUserEntitySerializer}.
+ */
+@Singleton
+public class BinaryUserEntitySerializer implements UserEntitySerializer {
+
+    private static final byte VERSION_1 = 1;
+    private static final byte MAX_VERSION = 8;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final JsonUserEntitySerializer legacySerializer;
+
+    @Inject
+    BinaryUserEntitySerializer(JsonUserEntitySerializer legacySerializer) {
+        this.legacySerializer = legacySerializer;
+    }
+
+    @Override
+    public byte[] serialize(UserEntity userEntity) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream(128);
+        output.write(VERSION_1);
+        writeVarint(output, zigzag(userEntity.getUserId()));
+        writeVarint(output, zigzag(userEntity.getFollowers()));
+        writeString(output, userEntity.getCoverUrl());
+        writeString(output, userEntity.getFullname());
+        writeString(output, userEntity.getDescription());
+        writeString(output, userEntity.getEmail());
+        return output.toByteArray();
+    }
+
+    @Override
+    public UserEntity deserialize(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return null;
+        }
+        final byte version = buffer.get(buffer.position());
+        if (version == VERSION_1) {
+            return readVersion1(buffer.slice());
+        }
+        if (version >= 0 && version <= MAX_VERSION) {
+            //written by a newer version of the cache
+            return null;
+        }
+        return legacySerializer.deserialize(buffer);
+    }
+
+    private static UserEntity readVersion1(ByteBuffer buffer) {
+        try {
+            buffer.get();
+            final UserEntity userEntity = new UserEntity();
+            userEntity.setUserId(unzigzag(readVarint(buffer)));
+            userEntity.setFollowers(unzigzag(readVarint(buffer)));
+            userEntity.setCoverUrl(readString(buffer));
+            userEntity.setFullname(readString(buffer));
+            userEntity.setDescription(readString(buffer));
+            userEntity.setEmail(readString(buffer));
+            return userEntity;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream output, String value) {
+        if (value == null) {
+            writeVarint(output, 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(CHARSET);
+        writeVarint(output, bytes.length + 1);
+        output.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        final int length = readVarint(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final ByteBuffer bytes = buffer.slice();
+        bytes.limit(length);
+        buffer.position(buffer.position() + length);
+        return CHARSET.decode(bytes).toString();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream output, int value) {
+        int remaining = value;
+        while ((remaining & ~0x7f) != 0) {
+            output.write((remaining & 0x7f) | 0x80);
+            remaining >>>= 7;
+        }
+        output.write(remaining);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte current = buffer.get();
+            value |= (current & 0x7f) << shift;
+            if ((current & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache.serializer;
+
+import com.google.gson.JsonParseException;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * {@link UserEntitySerializer} writing UTF-8 json, the format used by the first versions of the cache.
+ */
+@Singleton
+public class JsonUserEntitySerializer implements UserEntitySerializer {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final Serializer serializer;
+
+    @Inject
+    JsonUserEntitySerializer(Serializer serializer) {
+        this.serializer = serializer;
+    }
+
+    @Override
+    public byte[] serialize(UserEntity userEntity) {
+        return serializer.serialize(userEntity, UserEntity.class)
+                         .getBytes(CHARSET);
+    }
+
+    @Override
+    public UserEntity deserialize(ByteBuffer buffer) {
+        try {
+            return serializer.deserialize(buffer, UserEntity.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+}
@@ -16,6 +16,10 @@
 package com.nicklasslagbrand.baseline.data.cache.serializer;
 
 import com.google.gson.Gson;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -25,6 +29,8 @@ import javax.inject.Singleton;
 @Singleton
 public class Serializer {
 
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
     private final Gson gson = new Gson();
 
     @Inject
@@ -47,4 +53,45 @@ public class Serializer {
     public <T> T deserialize(String string, Class<T> clazz) {
         return gson.fromJson(string, clazz);
     }
+
+    /**
+     * Deserialize a UTF-8 json representation of an object, reading it straight from a buffer
+     * (e.g. a memory mapped file) without copying it into an intermediate String.
+     *
+     * @param buffer A buffer holding the json to deserialize.
+     */
+    public <T> T deserialize(ByteBuffer buffer, Class<T> clazz) {
+        return gson.fromJson(new InputStreamReader(new ByteBufferInputStream(buffer), CHARSET), clazz);
+    }
+
+    /**
+     * {@link InputStream} reading the remaining bytes of a {@link ByteBuffer}.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
 }
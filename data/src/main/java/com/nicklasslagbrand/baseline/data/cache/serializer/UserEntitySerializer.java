@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache.serializer;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.nio.ByteBuffer;
+
+/**
+ * Strategy used by the user cache to turn a {@link UserEntity} into bytes and back.
+ */
+public interface UserEntitySerializer {
+    /**
+     * Serialize a {@link UserEntity}.
+     *
+     * @param userEntity The element to serialize.
+     * @return The encoded element.
+     */
+    byte[] serialize(UserEntity userEntity);
+
+    /**
+     * Deserialize a {@link UserEntity} from the remaining bytes of a buffer.
+     *
+     * @param buffer A buffer holding an encoded element.
+     * @return The decoded {@link UserEntity} or null if the bytes are not in a known format.
+     */
+    UserEntity deserialize(ByteBuffer buffer);
+}
@@ -50,6 +50,10 @@ public class UserEntity {
         return coverUrl;
     }
 
+    public void setCoverUrl(String coverUrl) {
+        this.coverUrl = coverUrl;
+    }
+
     public String getFullname() {
         return fullname;
     }
@@ -62,11 +66,59 @@ public class UserEntity {
         return description;
     }
 
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
     public int getFollowers() {
         return followers;
     }
 
+    public void setFollowers(int followers) {
+        this.followers = followers;
+    }
+
     public String getEmail() {
         return email;
     }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || getClass() != object.getClass()) {
+            return false;
+        }
+        final UserEntity other = (UserEntity) object;
+        return userId == other.userId
+                && followers == other.followers
+                && equal(coverUrl, other.coverUrl)
+                && equal(fullname, other.fullname)
+                && equal(description, other.description)
+                && equal(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = userId;
+        result = 31 * result + followers;
+        result = 31 * result + hash(coverUrl);
+        result = 31 * result + hash(fullname);
+        result = 31 * result + hash(description);
+        result = 31 * result + hash(email);
+        return result;
+    }
+
+    private static boolean equal(String one, String other) {
+        return (one == null) ? other == null : one.equals(other);
+    }
+
+    private static int hash(String value) {
+        return (value == null) ? 0 : value.hashCode();
+    }
 }
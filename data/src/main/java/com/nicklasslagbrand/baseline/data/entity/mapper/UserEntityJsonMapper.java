@@ -18,6 +18,7 @@ package com.nicklasslagbrand.baseline.data.entity.mapper;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
 import java.lang.reflect.Type;
 import java.util.List;
@@ -47,6 +48,18 @@ public class UserEntityJsonMapper {
         return this.gson.fromJson(userJsonResponse, userEntityType);
     }
 
+    /**
+     * Transform the next json value of a stream to {@link UserEntity}.
+     * Used to parse big responses element by element instead of loading them whole in memory.
+     *
+     * @param userJsonReader A reader positioned at a json representing a user profile.
+     * @return {@link UserEntity}.
+     * @throws com.google.gson.JsonSyntaxException if the next value is not a valid json structure.
+     */
+    public UserEntity transformUserEntity(JsonReader userJsonReader) throws JsonSyntaxException {
+        return this.gson.fromJson(userJsonReader, UserEntity.class);
+    }
+
     /**
      * Transform from valid json string to List of {@link UserEntity}.
      *
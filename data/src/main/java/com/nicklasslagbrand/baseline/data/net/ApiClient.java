@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import com.squareup.okhttp.Connection;
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.net.SocketFactory;
+
+/**
+ * Owner of the single {@link OkHttpClient} used to talk to the api.
+ *
+ * Sharing one client keeps connections pooled and alive between requests (and multiplexed when the
+ * server speaks HTTP/2), so consecutive calls skip DNS, TCP and TLS setup. Every request executed
+ * through the client is measured and reported to the {@link MetricsListener}, if any.
+ */
+public class ApiClient {
+
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+    public static final long DEFAULT_KEEP_ALIVE_DURATION_MS = 5 * 60 * 1000;
+
+    private static final long READ_TIMEOUT_MS = 10000;
+    private static final long CONNECT_TIMEOUT_MS = 15000;
+
+    /**
+     * Interface to be notified of the {@link RequestMetrics} of every request.
+     * Callbacks happen in the thread executing the request.
+     */
+    public interface MetricsListener {
+        void onRequestMeasured(RequestMetrics requestMetrics);
+    }
+
+    private final OkHttpClient okHttpClient;
+    private final ThreadLocal<CallTimings> callTimings = new ThreadLocal<>();
+
+    private volatile MetricsListener metricsListener;
+
+    /**
+     * Constructor of the class {@link ApiClient}.
+     *
+     * @param maxIdleConnections Number of idle connections kept alive in the pool.
+     * @param keepAliveDurationMs Time an idle connection is kept in the pool before being closed.
+     */
+    public ApiClient(int maxIdleConnections, long keepAliveDurationMs) {
+        this.okHttpClient = new OkHttpClient();
+        this.okHttpClient.setReadTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        this.okHttpClient.setConnectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        this.okHttpClient.setConnectionPool(new ConnectionPool(maxIdleConnections, keepAliveDurationMs));
+        this.okHttpClient.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        this.okHttpClient.setSocketFactory(new TimingSocketFactory(SocketFactory.getDefault()));
+        this.okHttpClient.interceptors().add(new CallMetricsInterceptor());
+        this.okHttpClient.networkInterceptors().add(new NetworkMetricsInterceptor());
+    }
+
+    /**
+     * The shared {@link OkHttpClient}. Requests must be executed through it to reuse connections.
+     */
+    OkHttpClient okHttpClient() {
+        return okHttpClient;
+    }
+
+    public void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Measures a whole call, from the moment it is started to the moment response headers arrive.
+     */
+    private class CallMetricsInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final Request request = chain.request();
+            final CallTimings timings = new CallTimings();
+            callTimings.set(timings);
+            final long startNanos = System.nanoTime();
+            try {
+                final Response response = chain.proceed(request);
+                final long totalNanos = System.nanoTime() - startNanos;
+                reportMetrics(request, timings, totalNanos);
+                return response;
+            } finally {
+                callTimings.remove();
+            }
+        }
+
+        private void reportMetrics(Request request, CallTimings timings, long totalNanos) {
+            final MetricsListener listener = metricsListener;
+            if (listener != null) {
+                listener.onRequestMeasured(new RequestMetrics(request.urlString(), timings.protocol,
+                        timings.connectNanos == 0, toMillis(timings.connectNanos),
+                        toMillis(timings.timeToFirstByteNanos), toMillis(totalNanos)));
+            }
+        }
+
+        private long toMillis(long nanos) {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    /**
+     * Measures the exchange over an already established connection.
+     */
+    private class NetworkMetricsInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            final long startNanos = System.nanoTime();
+            final Response response = chain.proceed(chain.request());
+            final CallTimings timings = callTimings.get();
+            if (timings != null) {
+                timings.timeToFirstByteNanos = System.nanoTime() - startNanos;
+                final Connection connection = chain.connection();
+                if (connection != null) {
+                    timings.protocol = connection.getProtocol().toString();
+                }
+            }
+            return response;
+        }
+    }
+
+    /**
+     * {@link SocketFactory} whose sockets record how long connecting took.
+     */
+    private class TimingSocketFactory extends SocketFactory {
+        private final SocketFactory delegate;
+
+        TimingSocketFactory(SocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return new Socket() {
+                @Override
+                public void connect(SocketAddress endpoint, int timeout) throws IOException {
+                    final long startNanos = System.nanoTime();
+                    super.connect(endpoint, timeout);
+                    final CallTimings timings = callTimings.get();
+                    if (timings != null) {
+                        timings.connectNanos += System.nanoTime() - startNanos;
+                    }
+                }
+            };
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+                throws IOException {
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+
+    /**
+     * Timings collected while a call runs in the current thread.
+     */
+    private static class CallTimings {
+        long connectNanos;
+        long timeToFirstByteNanos;
+        String protocol;
+    }
+}
@@ -18,11 +18,11 @@ package com.nicklasslagbrand.baseline.data.net;
 import android.support.annotation.Nullable;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.concurrent.Callable;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Api Connection class used to retrieve data from the cloud.
@@ -34,15 +34,29 @@ class ApiConnection implements Callable<String> {
     private static final String CONTENT_TYPE_LABEL = "Content-Type";
     private static final String CONTENT_TYPE_VALUE_JSON = "application/json; charset=utf-8";
 
+    private final OkHttpClient okHttpClient;
+    private final ResponseValidators validators;
     private URL url;
     private String response;
 
-    private ApiConnection(String url) throws MalformedURLException {
+    private ApiConnection(OkHttpClient okHttpClient, String url, @Nullable ResponseValidators validators)
+            throws MalformedURLException {
+        this.okHttpClient = okHttpClient;
+        this.validators = validators;
         this.url = new URL(url);
     }
 
-    static ApiConnection createGET(String url) throws MalformedURLException {
-        return new ApiConnection(url);
+    static ApiConnection createGET(ApiClient apiClient, String url) throws MalformedURLException {
+        return new ApiConnection(apiClient.okHttpClient(), url, null);
+    }
+
+    /**
+     * Creates a conditional GET: the server answers 304 Not Modified, with no body, when the
+     * response the validators belong to is still current.
+     */
+    static ApiConnection createConditionalGET(ApiClient apiClient, String url, @Nullable ResponseValidators validators)
+            throws MalformedURLException {
+        return new ApiConnection(apiClient.okHttpClient(), url, validators);
     }
 
     /**
@@ -57,15 +71,28 @@ class ApiConnection implements Callable<String> {
         return response;
     }
 
+    /**
+     * Do a request to an api synchronously, without reading the response body.
+     * It should not be executed in the main thread of the application.
+     *
+     * @return The response, whose body the caller must close.
+     */
+    @Nullable
+    Response requestSyncResponse() {
+        try {
+            return this.okHttpClient.newCall(this.createRequest())
+                       .execute();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     private void connectToApi() {
-        OkHttpClient okHttpClient = this.createClient();
-        final Request request = new Request.Builder().url(this.url)
-                                                     .addHeader(CONTENT_TYPE_LABEL, CONTENT_TYPE_VALUE_JSON)
-                                                     .get()
-                                                     .build();
+        final Request request = this.createRequest();
 
         try {
-            this.response = okHttpClient.newCall(request)
+            this.response = this.okHttpClient.newCall(request)
                                         .execute()
                                         .body()
                                         .string();
@@ -74,12 +101,14 @@ class ApiConnection implements Callable<String> {
         }
     }
 
-    private OkHttpClient createClient() {
-        final OkHttpClient okHttpClient = new OkHttpClient();
-        okHttpClient.setReadTimeout(10000, TimeUnit.MILLISECONDS);
-        okHttpClient.setConnectTimeout(15000, TimeUnit.MILLISECONDS);
-
-        return okHttpClient;
+    private Request createRequest() {
+        final Request.Builder requestBuilder = new Request.Builder().url(this.url)
+                                                                    .addHeader(CONTENT_TYPE_LABEL, CONTENT_TYPE_VALUE_JSON)
+                                                                    .get();
+        if (this.validators != null) {
+            this.validators.applyTo(requestBuilder);
+        }
+        return requestBuilder.build();
     }
 
     @Override
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * {@link RestApi} that collects the single user requests issued within a short window and
+ * dispatches them as one batched request through {@link RestApi#userEntitiesByIds(Collection)}.
+ *
+ * The first request of a batch opens the window; the batch is sent when the window closes or as
+ * soon as it reaches the maximum size. Every other call is delegated as is.
+ *
+ * Users the batched request could not deliver, because it failed, left them out of the response
+ * or answered with entries that do not look like user details (such as the summaries of the user
+ * list, which carry no email, description nor cover), are requested again one by one through
+ * {@link RestApi#userEntityById(int)}, so a backend without the batched endpoint is only slower,
+ * never broken, and never has a summary cached as the details of a user.
+ */
+public class BatchingRestApi implements RestApi {
+
+    public static final long DEFAULT_BATCH_WINDOW_MS = 10;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+    private final RestApi restApi;
+    private final long batchWindowMs;
+    private final int maxBatchSize;
+    private final Scheduler scheduler;
+
+    private final Object lock = new Object();
+    private Map<Integer, List<ObservableEmitter<UserEntity>>> pendingRequests = new LinkedHashMap<>();
+    private boolean dispatchScheduled;
+
+    /**
+     * Constructor of the class using the default batch window and size.
+     *
+     * @param restApi {@link RestApi} executing the batched requests.
+     */
+    public BatchingRestApi(RestApi restApi) {
+        this(restApi, DEFAULT_BATCH_WINDOW_MS, DEFAULT_MAX_BATCH_SIZE, Schedulers.io());
+    }
+
+    /**
+     * Constructor of the class
+     *
+     * @param restApi {@link RestApi} executing the batched requests.
+     * @param batchWindowMs Time requests are collected before the batch is sent.
+     * @param maxBatchSize Number of different users that makes a batch to be sent right away.
+     * @param scheduler {@link Scheduler} where batches are sent.
+     */
+    public BatchingRestApi(RestApi restApi, long batchWindowMs, int maxBatchSize, Scheduler scheduler) {
+        if (restApi == null || scheduler == null || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid constructor parameters!!!");
+        }
+        this.restApi = restApi;
+        this.batchWindowMs = batchWindowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Observable<ValidatedResponse<List<UserEntity>>> userEntityList(ResponseValidators validators) {
+        return restApi.userEntityList(validators);
+    }
+
+    @Override
+    public Observable<UserEntity> userEntityById(final int userId) {
+        return Observable.create(emitter -> enqueue(userId, emitter));
+    }
+
+    @Override
+    public Observable<List<UserEntity>> userEntitiesByIds(final Collection<Integer> userIds) {
+        return restApi.userEntitiesByIds(userIds);
+    }
+
+    private void enqueue(int userId, ObservableEmitter<UserEntity> emitter) {
+        emitter.setCancellable(() -> cancel(userId, emitter));
+        synchronized (lock) {
+            List<ObservableEmitter<UserEntity>> emitters = pendingRequests.get(userId);
+            if (emitters == null) {
+                emitters = new ArrayList<>(1);
+                pendingRequests.put(userId, emitters);
+            }
+            emitters.add(emitter);
+
+            if (pendingRequests.size() >= maxBatchSize) {
+                final Map<Integer, List<ObservableEmitter<UserEntity>>> batch = takePendingRequests();
+                scheduler.scheduleDirect(() -> dispatch(batch));
+            } else if (!dispatchScheduled) {
+                dispatchScheduled = true;
+                scheduler.scheduleDirect(this::dispatchPendingRequests, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void cancel(int userId, ObservableEmitter<UserEntity> emitter) {
+        synchronized (lock) {
+            final List<ObservableEmitter<UserEntity>> emitters = pendingRequests.get(userId);
+            if (emitters != null && emitters.remove(emitter) && emitters.isEmpty()) {
+                pendingRequests.remove(userId);
+            }
+        }
+    }
+
+    private void dispatchPendingRequests() {
+        final Map<Integer, List<ObservableEmitter<UserEntity>>> batch;
+        synchronized (lock) {
+            dispatchScheduled = false;
+            batch = takePendingRequests();
+        }
+        dispatch(batch);
+    }
+
+    private Map<Integer, List<ObservableEmitter<UserEntity>>> takePendingRequests() {
+        final Map<Integer, List<ObservableEmitter<UserEntity>>> batch = pendingRequests;
+        pendingRequests = new LinkedHashMap<>();
+        return batch;
+    }
+
+    /**
+     * Sends a batch and routes every user in the response to the requests waiting for it. Users the
+     * batch did not deliver are requested again one by one.
+     */
+    private void dispatch(final Map<Integer, List<ObservableEmitter<UserEntity>>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        restApi.userEntitiesByIds(new ArrayList<>(batch.keySet()))
+               .subscribe(userEntities -> deliver(batch, userEntities),
+                       throwable -> requestOneByOne(batch),
+                       () -> requestOneByOne(batch));
+    }
+
+    private void deliver(Map<Integer, List<ObservableEmitter<UserEntity>>> batch, List<UserEntity> userEntities) {
+        for (UserEntity userEntity : userEntities) {
+            if (isUserDetails(userEntity)) {
+                final List<ObservableEmitter<UserEntity>> emitters = batch.remove(userEntity.getUserId());
+                if (emitters != null) {
+                    deliver(emitters, userEntity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether an entry of a batched response carries the details of a user, rather than the
+     * summary the user list is made of.
+     */
+    private boolean isUserDetails(UserEntity userEntity) {
+        return userEntity.getEmail() != null
+                || userEntity.getDescription() != null
+                || userEntity.getCoverUrl() != null;
+    }
+
+    /**
+     * Requests every user left in a batch on its own, failing the requests waiting for a user only
+     * when its single request fails too.
+     */
+    private void requestOneByOne(Map<Integer, List<ObservableEmitter<UserEntity>>> batch) {
+        for (Map.Entry<Integer, List<ObservableEmitter<UserEntity>>> request : batch.entrySet()) {
+            final List<ObservableEmitter<UserEntity>> emitters = request.getValue();
+            restApi.userEntityById(request.getKey())
+                   .subscribeOn(scheduler)
+                   .subscribe(userEntity -> deliver(emitters, userEntity),
+                           throwable -> fail(emitters, throwable),
+                           () -> fail(emitters, new UserNotFoundException()));
+        }
+        batch.clear();
+    }
+
+    private void deliver(List<ObservableEmitter<UserEntity>> emitters, UserEntity userEntity) {
+        for (ObservableEmitter<UserEntity> emitter : emitters) {
+            emitter.onNext(userEntity);
+            emitter.onComplete();
+        }
+    }
+
+    private void fail(List<ObservableEmitter<UserEntity>> emitters, Throwable throwable) {
+        for (ObservableEmitter<UserEntity> emitter : emitters) {
+            if (!emitter.isDisposed()) {
+                emitter.onError(throwable);
+            }
+        }
+    }
+}
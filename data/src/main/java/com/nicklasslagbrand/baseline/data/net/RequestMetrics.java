@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+/**
+ * Timings of a single request executed through {@link ApiClient}.
+ */
+public class RequestMetrics {
+
+    private final String url;
+    private final String protocol;
+    private final boolean connectionReused;
+    private final long connectMillis;
+    private final long timeToFirstByteMillis;
+    private final long totalMillis;
+
+    RequestMetrics(String url, String protocol, boolean connectionReused, long connectMillis,
+            long timeToFirstByteMillis, long totalMillis) {
+        this.url = url;
+        this.protocol = protocol;
+        this.connectionReused = connectionReused;
+        this.connectMillis = connectMillis;
+        this.timeToFirstByteMillis = timeToFirstByteMillis;
+        this.totalMillis = totalMillis;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * The protocol negotiated for the connection, e.g. "h2" or "http/1.1".
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * Whether the request was sent over a pooled connection instead of opening a new one.
+     */
+    public boolean isConnectionReused() {
+        return connectionReused;
+    }
+
+    /**
+     * Time spent opening the TCP socket, 0 when the connection was reused.
+     */
+    public long getConnectMillis() {
+        return connectMillis;
+    }
+
+    /**
+     * Time from sending the request over the connection to receiving the response headers.
+     */
+    public long getTimeToFirstByteMillis() {
+        return timeToFirstByteMillis;
+    }
+
+    /**
+     * Time from starting the call to receiving the response headers, including name resolution,
+     * connection setup, TLS and redirects.
+     */
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "RequestMetrics{url=" + url
+                + ", protocol=" + protocol
+                + ", connectionReused=" + connectionReused
+                + ", connectMillis=" + connectMillis
+                + ", timeToFirstByteMillis=" + timeToFirstByteMillis
+                + ", totalMillis=" + totalMillis
+                + '}';
+    }
+}
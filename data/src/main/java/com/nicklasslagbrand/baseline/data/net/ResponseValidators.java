@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import android.support.annotation.Nullable;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+/**
+ * Validators of a response (its ETag and Last-Modified headers) used to ask the server, through a
+ * conditional request, whether a previously downloaded response is still up to date. They are kept
+ * along with the cached response they belong to.
+ */
+public class ResponseValidators {
+
+    private static final String ETAG_LABEL = "ETag";
+    private static final String LAST_MODIFIED_LABEL = "Last-Modified";
+    private static final String IF_NONE_MATCH_LABEL = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE_LABEL = "If-Modified-Since";
+
+    @Nullable private final String etag;
+    @Nullable private final String lastModified;
+
+    public ResponseValidators(@Nullable String etag, @Nullable String lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Reads the validators sent along a {@link Response}.
+     */
+    static ResponseValidators from(Response response) {
+        return new ResponseValidators(response.header(ETAG_LABEL), response.header(LAST_MODIFIED_LABEL));
+    }
+
+    /**
+     * Whether the response carried no validator, so it cannot be revalidated.
+     */
+    public boolean isEmpty() {
+        return etag == null && lastModified == null;
+    }
+
+    /**
+     * Adds the conditional headers that make the server answer 304 Not Modified when the response
+     * these validators belong to is still current.
+     */
+    void applyTo(Request.Builder requestBuilder) {
+        if (etag != null) {
+            requestBuilder.header(IF_NONE_MATCH_LABEL, etag);
+        }
+        if (lastModified != null) {
+            requestBuilder.header(IF_MODIFIED_SINCE_LABEL, lastModified);
+        }
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    public String getLastModified() {
+        return lastModified;
+    }
+}
@@ -15,8 +15,10 @@
  */
 package com.nicklasslagbrand.baseline.data.net;
 
+import android.support.annotation.Nullable;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 import io.reactivex.Observable;
@@ -29,11 +31,16 @@ public interface RestApi {
 
     String API_URL_GET_USER_LIST = API_BASE_URL + "/users";
     String API_URL_GET_USER_DETAILS = API_BASE_URL + "/users/";
+    String API_URL_GET_USERS_BY_IDS = API_BASE_URL + "/users/batch?ids=";
 
     /**
-     * Retrieves an {@link Observable} which will emit a List of {@link UserEntity}.
+     * Retrieves an {@link Observable} which will emit a List of {@link UserEntity}, along with its
+     * validators. When validators of a previously downloaded list are given, the request is
+     * conditional on them, and emits a not modified response if that list is still current.
+     *
+     * @param validators The validators of the previously downloaded list, or null.
      */
-    Observable<List<UserEntity>> userEntityList();
+    Observable<ValidatedResponse<List<UserEntity>>> userEntityList(@Nullable ResponseValidators validators);
 
     /**
      * Retrieves an {@link Observable} which will emit a {@link UserEntity}.
@@ -41,4 +48,12 @@ public interface RestApi {
      * @param userId The user id used to get user data.
      */
     Observable<UserEntity> userEntityById(final int userId);
+
+    /**
+     * Retrieves an {@link Observable} which will emit a List with the {@link UserEntity} of every
+     * requested user found, fetched in a single request.
+     *
+     * @param userIds The ids of the users to get data from.
+     */
+    Observable<List<UserEntity>> userEntitiesByIds(final Collection<Integer> userIds);
 }
@@ -19,13 +19,21 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 
+import com.google.gson.stream.JsonReader;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
 import com.nicklasslagbrand.baseline.data.entity.mapper.UserEntityJsonMapper;
 import com.nicklasslagbrand.baseline.data.exception.NetworkConnectionException;
+import com.squareup.okhttp.Response;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.util.Collection;
 import java.util.List;
 
+import io.reactivex.Emitter;
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 
 /**
@@ -35,29 +43,65 @@ public class RestApiImpl implements RestApi {
 
     private final Context context;
     private final UserEntityJsonMapper userEntityJsonMapper;
+    private final ApiClient apiClient;
 
     /**
      * Constructor of the class
      *
      * @param context {@link android.content.Context}.
      * @param userEntityJsonMapper {@link UserEntityJsonMapper}.
+     * @param apiClient {@link ApiClient} shared by every request.
      */
-    public RestApiImpl(Context context, UserEntityJsonMapper userEntityJsonMapper) {
-        if (context == null || userEntityJsonMapper == null) {
+    public RestApiImpl(Context context, UserEntityJsonMapper userEntityJsonMapper, ApiClient apiClient) {
+        if (context == null || userEntityJsonMapper == null || apiClient == null) {
             throw new IllegalArgumentException("The constructor parameters cannot be null!!!");
         }
         this.context = context.getApplicationContext();
         this.userEntityJsonMapper = userEntityJsonMapper;
+        this.apiClient = apiClient;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The list is parsed element by element as the response body is read, so the body is never
+     * held in memory as a whole. A 304 Not Modified answer is only expected, and reported as such,
+     * when validators are given.
+     */
+    @Override
+    public Observable<ValidatedResponse<List<UserEntity>>> userEntityList(final ResponseValidators validators) {
+        return Observable.defer(() -> {
+            if (!isThereInternetConnection()) {
+                throw new NetworkConnectionException();
+            }
+            final Response response = getUserEntitiesResponseFromApi(validators);
+            if (response == null) {
+                throw new NetworkConnectionException();
+            }
+            if (validators != null && response.code() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                response.body().close();
+                return Observable.just(ValidatedResponse.<List<UserEntity>>notModified(validators));
+            }
+            if (!response.isSuccessful()) {
+                response.body().close();
+                throw new NetworkConnectionException();
+            }
+            final ResponseValidators responseValidators = ResponseValidators.from(response);
+            return readUserEntities(response).toList()
+                                             .map(userEntities -> new ValidatedResponse<>(responseValidators,
+                                                     userEntities))
+                                             .toObservable();
+        });
     }
 
     @Override
-    public Observable<List<UserEntity>> userEntityList() {
+    public Observable<UserEntity> userEntityById(final int userId) {
         return Observable.create(emitter -> {
             if (isThereInternetConnection()) {
                 try {
-                    String responseUserEntities = getUserEntitiesFromApi();
-                    if (responseUserEntities != null) {
-                        emitter.onNext(userEntityJsonMapper.transformUserEntityCollection(responseUserEntities));
+                    String responseUserDetails = getUserDetailsFromApi(userId);
+                    if (responseUserDetails != null) {
+                        emitter.onNext(userEntityJsonMapper.transformUserEntity(responseUserDetails));
                         emitter.onComplete();
                     } else {
                         emitter.onError(new NetworkConnectionException());
@@ -72,13 +116,13 @@ public class RestApiImpl implements RestApi {
     }
 
     @Override
-    public Observable<UserEntity> userEntityById(final int userId) {
+    public Observable<List<UserEntity>> userEntitiesByIds(final Collection<Integer> userIds) {
         return Observable.create(emitter -> {
             if (isThereInternetConnection()) {
                 try {
-                    String responseUserDetails = getUserDetailsFromApi(userId);
-                    if (responseUserDetails != null) {
-                        emitter.onNext(userEntityJsonMapper.transformUserEntity(responseUserDetails));
+                    String responseUserEntities = getUserEntitiesByIdsFromApi(userIds);
+                    if (responseUserEntities != null) {
+                        emitter.onNext(userEntityJsonMapper.transformUserEntityCollection(responseUserEntities));
                         emitter.onComplete();
                     } else {
                         emitter.onError(new NetworkConnectionException());
@@ -92,14 +136,66 @@ public class RestApiImpl implements RestApi {
         });
     }
 
-    private String getUserEntitiesFromApi() throws MalformedURLException {
-        return ApiConnection.createGET(API_URL_GET_USER_LIST)
-                            .requestSyncCall();
+    /**
+     * Streams the user list out of a response body.
+     */
+    private Flowable<UserEntity> readUserEntities(Response response) {
+        return Flowable.generate(() -> openUserEntitiesReader(response), this::readNextUserEntity, JsonReader::close);
+    }
+
+    /**
+     * Positions a {@link JsonReader} inside the array of the user list response.
+     */
+    private JsonReader openUserEntitiesReader(Response response) throws Exception {
+        final JsonReader jsonReader =
+                new JsonReader(new InputStreamReader(response.body().byteStream(), "UTF-8"));
+        try {
+            jsonReader.beginArray();
+        } catch (Exception e) {
+            jsonReader.close();
+            throw new NetworkConnectionException(e);
+        }
+        return jsonReader;
+    }
+
+    /**
+     * Emits the next element of the user list, or completes once the array has been fully read.
+     */
+    private void readNextUserEntity(JsonReader jsonReader, Emitter<UserEntity> emitter) {
+        try {
+            if (jsonReader.hasNext()) {
+                emitter.onNext(userEntityJsonMapper.transformUserEntity(jsonReader));
+            } else {
+                jsonReader.endArray();
+                emitter.onComplete();
+            }
+        } catch (IOException | RuntimeException e) {
+            emitter.onError(new NetworkConnectionException(e));
+        }
+    }
+
+    private Response getUserEntitiesResponseFromApi(ResponseValidators validators) throws MalformedURLException {
+        return ApiConnection.createConditionalGET(apiClient, API_URL_GET_USER_LIST, validators)
+                            .requestSyncResponse();
     }
 
     private String getUserDetailsFromApi(int userId) throws MalformedURLException {
         String apiUrl = API_URL_GET_USER_DETAILS + userId;
-        return ApiConnection.createGET(apiUrl)
+        return ApiConnection.createGET(apiClient, apiUrl)
+                            .requestSyncCall();
+    }
+
+    private String getUserEntitiesByIdsFromApi(Collection<Integer> userIds) throws MalformedURLException {
+        final StringBuilder apiUrl = new StringBuilder(API_URL_GET_USERS_BY_IDS);
+        boolean first = true;
+        for (Integer userId : userIds) {
+            if (!first) {
+                apiUrl.append(',');
+            }
+            apiUrl.append(userId);
+            first = false;
+        }
+        return ApiConnection.createGET(apiClient, apiUrl.toString())
                             .requestSyncCall();
     }
 
@@ -0,0 +1,50 @@
+package com.nicklasslagbrand.baseline.data.net;
+
+import android.support.annotation.Nullable;
+
+/**
+ * A response to a conditional request: either the parsed response, along with the
+ * {@link ResponseValidators} needed to revalidate it later, or the answer that the response the
+ * request was conditional on has not been modified.
+ *
+ * @param <T> The type of the parsed response.
+ */
+public class ValidatedResponse<T> {
+
+    private final ResponseValidators validators;
+    @Nullable private final T value;
+
+    public ValidatedResponse(ResponseValidators validators, @Nullable T value) {
+        this.validators = validators;
+        this.value = value;
+    }
+
+    /**
+     * Creates the answer that the response the validators belong to has not been modified.
+     */
+    public static <T> ValidatedResponse<T> notModified(ResponseValidators validators) {
+        return new ValidatedResponse<>(validators, null);
+    }
+
+    /**
+     * Whether the server answered 304 Not Modified, so the response already held is still current.
+     */
+    public boolean isNotModified() {
+        return value == null;
+    }
+
+    /**
+     * The validators of the response, possibly empty when the server sent none.
+     */
+    public ResponseValidators getValidators() {
+        return validators;
+    }
+
+    /**
+     * The parsed response, or null if it was not modified.
+     */
+    @Nullable
+    public T getValue() {
+        return value;
+    }
+}
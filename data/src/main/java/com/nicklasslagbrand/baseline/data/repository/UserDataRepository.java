@@ -46,18 +46,31 @@ public class UserDataRepository implements UserRepository {
         this.userEntityDataMapper = userEntityDataMapper;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The data store is chosen on subscription, so checking the cache happens on the subscribing
+     * thread and never on the one calling this method.
+     */
     @Override
     public Observable<List<User>> users() {
-        //we always get all users from the cloud
-        final UserDataStore userDataStore = userDataStoreFactory.createCloudDataStore();
-        return userDataStore.userEntityList()
-                            .map(userEntityDataMapper::transform);
+        return Observable.defer(() -> {
+            final UserDataStore userDataStore = userDataStoreFactory.createListDataStore();
+            return userDataStore.userEntityList();
+        }).map(userEntityDataMapper::transform);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The data store is chosen on subscription, so checking the cache happens on the subscribing
+     * thread and never on the one calling this method.
+     */
     @Override
     public Observable<User> user(int userId) {
-        final UserDataStore userDataStore = userDataStoreFactory.create(userId);
-        return userDataStore.userEntityDetails(userId)
-                            .map(userEntityDataMapper::transform);
+        return Observable.defer(() -> {
+            final UserDataStore userDataStore = userDataStoreFactory.create(userId);
+            return userDataStore.userEntityDetails(userId);
+        }).map(userEntityDataMapper::transform);
     }
 }
@@ -0,0 +1,72 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.repository.datasource;
+
+import com.nicklasslagbrand.baseline.data.cache.UserCache;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link UserDataStore} implementation that emits the cached data right away, even if stale, and
+ * then the fresh data retrieved from the Cloud when it differs from the cached one.
+ *
+ * A failure reading the cache is ignored. A failure retrieving the fresh data is only reported when
+ * nothing could be emitted from the cache before.
+ */
+class CacheThenCloudUserDataStore implements UserDataStore {
+
+    private final UserCache userCache;
+    private final UserDataStore cloudUserDataStore;
+
+    /**
+     * Construct a {@link UserDataStore} revalidating the cached data against the Cloud.
+     *
+     * @param userCache A {@link UserCache} to read the cached data from.
+     * @param cloudUserDataStore The {@link UserDataStore} retrieving fresh data from the Cloud.
+     */
+    CacheThenCloudUserDataStore(UserCache userCache, UserDataStore cloudUserDataStore) {
+        this.userCache = userCache;
+        this.cloudUserDataStore = cloudUserDataStore;
+    }
+
+    @Override
+    public Observable<List<UserEntity>> userEntityList() {
+        return cacheThenCloud(userCache.getAll(), cloudUserDataStore.userEntityList());
+    }
+
+    @Override
+    public Observable<UserEntity> userEntityDetails(final int userId) {
+        return cacheThenCloud(userCache.get(userId), cloudUserDataStore.userEntityDetails(userId));
+    }
+
+    private static <T> Observable<T> cacheThenCloud(Observable<T> cached, Observable<T> cloud) {
+        return Observable.defer(() -> {
+            final AtomicBoolean cachedEmitted = new AtomicBoolean();
+            final Function<Throwable, ObservableSource<T>> resumeWithCached =
+                    throwable -> cachedEmitted.get() ? Observable.<T>empty() : Observable.<T>error(throwable);
+
+            return Observable.concat(
+                    cached.doOnNext(value -> cachedEmitted.set(true))
+                          .onErrorResumeNext(Observable.<T>empty()),
+                    cloud.onErrorResumeNext(resumeWithCached))
+                             .distinctUntilChanged();
+        });
+    }
+}
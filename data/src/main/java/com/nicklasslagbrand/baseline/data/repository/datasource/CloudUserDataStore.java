@@ -17,37 +17,63 @@ package com.nicklasslagbrand.baseline.data.repository.datasource;
 
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.net.ResponseValidators;
 import com.nicklasslagbrand.baseline.data.net.RestApi;
 import io.reactivex.Observable;
 import java.util.List;
 
 /**
  * {@link UserDataStore} implementation based on connections to the api (Cloud).
+ *
+ * The user list is requested conditionally on the validators of the cached one, if any. When the
+ * server reports it has not been modified, the cached list is emitted and marked as fresh again
+ * instead of being downloaded.
  */
 class CloudUserDataStore implements UserDataStore {
 
     private final RestApi restApi;
     private final UserCache userCache;
+    private final SingleFlight<Integer, UserEntity> userDetailsRequests;
 
     /**
      * Construct a {@link UserDataStore} based on connections to the api (Cloud).
      *
      * @param restApi The {@link RestApi} implementation to use.
      * @param userCache A {@link UserCache} to cache data retrieved from the api.
+     * @param userDetailsRequests {@link SingleFlight} shared by every store so concurrent requests
+     * for the same user end up in a single network call.
      */
-    CloudUserDataStore(RestApi restApi, UserCache userCache) {
+    CloudUserDataStore(RestApi restApi, UserCache userCache, SingleFlight<Integer, UserEntity> userDetailsRequests) {
         this.restApi = restApi;
         this.userCache = userCache;
+        this.userDetailsRequests = userDetailsRequests;
     }
 
     @Override
     public Observable<List<UserEntity>> userEntityList() {
-        return this.restApi.userEntityList();
+        return Observable.defer(() -> userEntityList(userCache.getListValidators()));
+    }
+
+    /**
+     * Retrieves the user list, conditionally on the given validators. A list reported as not
+     * modified that can no longer be read from the cache is requested again, unconditionally.
+     */
+    private Observable<List<UserEntity>> userEntityList(ResponseValidators validators) {
+        return this.restApi.userEntityList(validators)
+                           .flatMap(response -> {
+                               if (!response.isNotModified()) {
+                                   userCache.putAll(response.getValue(), response.getValidators());
+                                   return Observable.just(response.getValue());
+                               }
+                               return userCache.getAll()
+                                               .doOnNext(userEntities -> userCache.refreshList())
+                                               .onErrorResumeNext(Observable.defer(() -> userEntityList(null)));
+                           });
     }
 
     @Override
     public Observable<UserEntity> userEntityDetails(final int userId) {
-        return restApi.userEntityById(userId)
-                           .doOnNext(CloudUserDataStore.this.userCache::put);
+        return userDetailsRequests.join(userId, restApi.userEntityById(userId)
+                                                      .doOnNext(CloudUserDataStore.this.userCache::put));
     }
 }
@@ -22,28 +22,35 @@ import java.util.List;
 
 /**
  * {@link UserDataStore} implementation based on file system data store.
+ *
+ * Data reported as cached may still fail to be read, e.g. when its stored value is corrupted; it is
+ * then retrieved from the Cloud instead.
  */
 class DiskUserDataStore implements UserDataStore {
 
     private final UserCache userCache;
+    private final UserDataStore cloudUserDataStore;
 
     /**
      * Construct a {@link UserDataStore} based file system data store.
      *
      * @param userCache A {@link UserCache} to cache data retrieved from the api.
+     * @param cloudUserDataStore The {@link UserDataStore} retrieving the data that cannot be read from the cache.
      */
-    DiskUserDataStore(UserCache userCache) {
+    DiskUserDataStore(UserCache userCache, UserDataStore cloudUserDataStore) {
         this.userCache = userCache;
+        this.cloudUserDataStore = cloudUserDataStore;
     }
 
     @Override
     public Observable<List<UserEntity>> userEntityList() {
-        //TODO: implement simple cache for storing/retrieving collections of users.
-        throw new UnsupportedOperationException("Operation is not available!!!");
+        return userCache.getAll()
+                        .onErrorResumeNext(Observable.defer(cloudUserDataStore::userEntityList));
     }
 
     @Override
     public Observable<UserEntity> userEntityDetails(final int userId) {
-        return userCache.get(userId);
+        return userCache.get(userId)
+                        .onErrorResumeNext(Observable.defer(() -> cloudUserDataStore.userEntityDetails(userId)));
     }
 }
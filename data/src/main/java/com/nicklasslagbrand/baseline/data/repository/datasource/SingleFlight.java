@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.repository.datasource;
+
+import io.reactivex.Observable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Collapses concurrent subscriptions to the same request into a single upstream subscription.
+ *
+ * While a request for a key is in flight, every new subscriber joins it and receives its result
+ * instead of starting a new one. Once the request terminates (or every subscriber has gone) the
+ * key is released and the next subscription starts a fresh request.
+ *
+ * @param <K> The type of the key identifying a request.
+ * @param <T> The type of the elements emitted by a request.
+ */
+class SingleFlight<K, T> {
+
+    private final ConcurrentMap<K, Observable<T>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Gets an {@link Observable} that joins the request in flight for a key, or subscribes to
+     * the given source if there is none.
+     *
+     * @param key The key identifying the request.
+     * @param source The request to run when there is none in flight for the key.
+     */
+    Observable<T> join(final K key, final Observable<T> source) {
+        return Observable.defer(() -> {
+            final Observable<T> current = inFlight.get(key);
+            if (current != null) {
+                return current;
+            }
+            final AtomicReference<Observable<T>> sharedReference = new AtomicReference<>();
+            final Observable<T> shared = source.doFinally(() -> inFlight.remove(key, sharedReference.get()))
+                                               .replay(1)
+                                               .refCount();
+            sharedReference.set(shared);
+            final Observable<T> previous = inFlight.putIfAbsent(key, shared);
+            return (previous != null) ? previous : shared;
+        });
+    }
+
+    /**
+     * Checks if there is a request in flight for a key.
+     */
+    boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+}
@@ -18,7 +18,10 @@ package com.nicklasslagbrand.baseline.data.repository.datasource;
 import android.content.Context;
 import android.support.annotation.NonNull;
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
 import com.nicklasslagbrand.baseline.data.entity.mapper.UserEntityJsonMapper;
+import com.nicklasslagbrand.baseline.data.net.ApiClient;
+import com.nicklasslagbrand.baseline.data.net.BatchingRestApi;
 import com.nicklasslagbrand.baseline.data.net.RestApi;
 import com.nicklasslagbrand.baseline.data.net.RestApiImpl;
 import javax.inject.Inject;
@@ -30,25 +33,49 @@ import javax.inject.Singleton;
 @Singleton
 public class UserDataStoreFactory {
 
-    private final Context context;
     private final UserCache userCache;
+    private final RestApi restApi;
+    private final SingleFlight<Integer, UserEntity> userDetailsRequests = new SingleFlight<>();
 
     @Inject
-    UserDataStoreFactory(@NonNull Context context, @NonNull UserCache userCache) {
-        this.context = context.getApplicationContext();
+    UserDataStoreFactory(@NonNull Context context, @NonNull UserCache userCache, @NonNull ApiClient apiClient) {
         this.userCache = userCache;
+        this.restApi = new BatchingRestApi(new RestApiImpl(context, new UserEntityJsonMapper(), apiClient));
     }
 
     /**
-     * Create {@link UserDataStore} from a user id.
+     * Create {@link UserDataStore} from a user id. A fresh cached user is read from disk, and only
+     * retrieved from the Cloud if it cannot be read, an expired one is shown while the user is
+     * retrieved again from the Cloud.
      */
     public UserDataStore create(int userId) {
         UserDataStore userDataStore;
 
-        if (!userCache.isExpired() && userCache.isCached(userId)) {
-            userDataStore = new DiskUserDataStore(userCache);
+        if (!userCache.isCached(userId)) {
+            userDataStore = createCloudDataStore();
+        } else if (!userCache.isExpired(userId)) {
+            userDataStore = new DiskUserDataStore(userCache, createCloudDataStore());
         } else {
+            userDataStore = new CacheThenCloudUserDataStore(userCache, createCloudDataStore());
+        }
+
+        return userDataStore;
+    }
+
+    /**
+     * Create {@link UserDataStore} to retrieve the user list from. A fresh cached list is read
+     * from disk, and only retrieved from the Cloud if it cannot be read, an expired one is shown
+     * while the list is retrieved again from the Cloud.
+     */
+    public UserDataStore createListDataStore() {
+        UserDataStore userDataStore;
+
+        if (!userCache.isListCached()) {
             userDataStore = createCloudDataStore();
+        } else if (!userCache.isListExpired()) {
+            userDataStore = new DiskUserDataStore(userCache, createCloudDataStore());
+        } else {
+            userDataStore = new CacheThenCloudUserDataStore(userCache, createCloudDataStore());
         }
 
         return userDataStore;
@@ -58,9 +85,6 @@ public class UserDataStoreFactory {
      * Create {@link UserDataStore} to retrieve data from the Cloud.
      */
     public UserDataStore createCloudDataStore() {
-        final UserEntityJsonMapper userEntityJsonMapper = new UserEntityJsonMapper();
-        final RestApi restApi = new RestApiImpl(context, userEntityJsonMapper);
-
-        return new CloudUserDataStore(restApi, userCache);
+        return new CloudUserDataStore(restApi, userCache, userDetailsRequests);
     }
 }
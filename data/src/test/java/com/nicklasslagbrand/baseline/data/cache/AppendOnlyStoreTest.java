@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class AppendOnlyStoreTest {
+
+    private static final int FAKE_KEY = 7;
+    // file header plus the header of the first record
+    private static final long FIRST_VALUE_OFFSET = 8 + 20;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File storeFile;
+    private AppendOnlyStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        storeFile = new File(temporaryFolder.getRoot(), "store.log");
+        store = new AppendOnlyStore(storeFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        store.put(FAKE_KEY, bytes("content"));
+
+        assertThat(store.contains(FAKE_KEY), is(true));
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("content"))));
+        assertThat(store.get(FAKE_KEY + 1), is(nullValue()));
+    }
+
+    @Test
+    public void testLatestPutWins() throws IOException {
+        store.put(FAKE_KEY, bytes("old"));
+        store.put(FAKE_KEY, bytes("new"));
+
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("new"))));
+    }
+
+    @Test
+    public void testIndexIsRebuiltFromTheLog() throws IOException {
+        store.put(FAKE_KEY, bytes("old"));
+        store.put(FAKE_KEY, bytes("new"));
+        store.put(FAKE_KEY + 1, bytes("removed"));
+        store.remove(FAKE_KEY + 1);
+        store.close();
+
+        final AppendOnlyStore reopenedStore = new AppendOnlyStore(storeFile);
+
+        assertThat(reopenedStore.get(FAKE_KEY), is(equalTo(buffer("new"))));
+        assertThat(reopenedStore.contains(FAKE_KEY + 1), is(false));
+        reopenedStore.close();
+    }
+
+    @Test
+    public void testTimestampsSurviveReopenAndCompaction() throws IOException {
+        store.put(FAKE_KEY, bytes("value"), 1000L);
+        store.put(FAKE_KEY + 1, bytes("value"), 2000L);
+        store.compact();
+        store.close();
+
+        final AppendOnlyStore reopenedStore = new AppendOnlyStore(storeFile);
+
+        assertThat(reopenedStore.timestamps().get(FAKE_KEY), is(1000L));
+        assertThat(reopenedStore.timestamps().get(FAKE_KEY + 1), is(2000L));
+        reopenedStore.close();
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        store.put(FAKE_KEY, bytes("complete"));
+        final long completeSize = store.size();
+        store.put(FAKE_KEY + 1, bytes("torn"));
+        store.close();
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(storeFile, "rw");
+        randomAccessFile.setLength(randomAccessFile.length() - 2);
+        randomAccessFile.close();
+
+        final AppendOnlyStore reopenedStore = new AppendOnlyStore(storeFile);
+
+        assertThat(reopenedStore.get(FAKE_KEY), is(equalTo(buffer("complete"))));
+        assertThat(reopenedStore.contains(FAKE_KEY + 1), is(false));
+        assertThat(reopenedStore.size(), is(completeSize));
+        reopenedStore.close();
+    }
+
+    @Test
+    public void testCorruptedValueIsSkipped() throws IOException {
+        store.put(FAKE_KEY, bytes("corrupted"));
+        store.put(FAKE_KEY + 1, bytes("intact"));
+        store.close();
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(storeFile, "rw");
+        randomAccessFile.seek(FIRST_VALUE_OFFSET);
+        randomAccessFile.write('C');
+        randomAccessFile.close();
+
+        final AppendOnlyStore reopenedStore = new AppendOnlyStore(storeFile);
+
+        assertThat(reopenedStore.get(FAKE_KEY), is(nullValue()));
+        assertThat(reopenedStore.contains(FAKE_KEY), is(false));
+        assertThat(reopenedStore.get(FAKE_KEY + 1), is(equalTo(buffer("intact"))));
+        reopenedStore.close();
+    }
+
+    @Test
+    public void testCompactKeepsOnlyLatestValues() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            store.put(FAKE_KEY, bytes("value_" + i));
+        }
+        final long sizeBeforeCompaction = store.size();
+
+        store.compact();
+
+        assertThat(store.size() < sizeBeforeCompaction, is(true));
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("value_9"))));
+    }
+
+    @Test
+    public void testReadBufferSurvivesLaterWrites() throws IOException {
+        store.put(FAKE_KEY, bytes("content"));
+        final ByteBuffer value = store.get(FAKE_KEY);
+
+        store.put(FAKE_KEY + 1, bytes("other"));
+        store.compact();
+        store.clear();
+
+        assertThat(value, is(equalTo(buffer("content"))));
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        store.put(FAKE_KEY, bytes("content"));
+
+        store.clear();
+
+        assertThat(store.contains(FAKE_KEY), is(false));
+        assertThat(store.size(), is(8L));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes();
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(bytes(value));
+    }
+}
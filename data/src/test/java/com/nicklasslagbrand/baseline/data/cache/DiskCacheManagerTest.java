@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DiskCacheManagerTest {
+
+    private static final long MAX_SIZE_BYTES = 10;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final Executor queueingExecutor = pendingTasks::add;
+
+    private DiskCacheManager diskCacheManager;
+
+    @Before
+    public void setUp() {
+        diskCacheManager = new DiskCacheManager(temporaryFolder.getRoot(), MAX_SIZE_BYTES, queueingExecutor);
+    }
+
+    @Test
+    public void testNamespaceIsCreatedOnce() {
+        final DiskCacheNamespace namespace = diskCacheManager.namespace("images");
+
+        assertThat(diskCacheManager.namespace("images"), is(sameInstance(namespace)));
+        assertThat(namespace.getDirectory(), is(new File(temporaryFolder.getRoot(), "images")));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFilesAreDeletedAcrossNamespaces() throws IOException {
+        final DiskCacheNamespace users = diskCacheManager.namespace("users");
+        final DiskCacheNamespace images = diskCacheManager.namespace("images");
+        write(images, "first", 4);
+        write(users, "user", 4);
+        images.recordRead("first");
+        write(images, "second", 4);
+
+        runPendingTasks();
+
+        assertThat(users.file("user").exists(), is(false));
+        assertThat(images.file("first").exists(), is(true));
+        assertThat(images.file("second").exists(), is(true));
+        assertThat(diskCacheManager.size(), is(8L));
+    }
+
+    @Test
+    public void testPinnedFilesCountTowardsTheSharedBudget() throws IOException {
+        final DiskCacheNamespace users = diskCacheManager.namespace("users");
+        final DiskCacheNamespace images = diskCacheManager.namespace("images");
+        users.pin("users.log");
+        write(users, "users.log", 8);
+        write(images, "image", 4);
+
+        runPendingTasks();
+
+        assertThat(users.file("users.log").exists(), is(true));
+        assertThat(images.file("image").exists(), is(false));
+        assertThat(diskCacheManager.size(), is(8L));
+        assertThat(users.size(), is(8L));
+        assertThat(images.size(), is(0L));
+    }
+
+    @Test
+    public void testLegacyFilesInTheRootAreDeleted() throws IOException {
+        final File root = temporaryFolder.newFolder("cache");
+        createFile(new File(root, "user_1"));
+        createFile(new File(root, "image_1234"));
+        createFile(new File(root, "users.log"));
+        createFile(new File(root, "cache.journal"));
+        createFile(new File(root, "unrelated"));
+
+        final DiskCacheManager diskCacheManager = new DiskCacheManager(root, MAX_SIZE_BYTES, queueingExecutor);
+        write(diskCacheManager.namespace("users"), "users.log", 4);
+        runPendingTasks();
+
+        final String[] remaining = root.list();
+        Arrays.sort(remaining);
+        assertThat(Arrays.asList(remaining), is(Arrays.asList("unrelated", "users")));
+        assertThat(new File(new File(root, "users"), "users.log").exists(), is(true));
+    }
+
+    private static void createFile(File file) throws IOException {
+        new FileOutputStream(file).close();
+    }
+
+    private static void write(DiskCacheNamespace namespace, String name, int length) throws IOException {
+        final FileOutputStream outputStream = new FileOutputStream(namespace.file(name));
+        try {
+            outputStream.write(new byte[length]);
+        } finally {
+            outputStream.close();
+        }
+        namespace.recordWrite(name);
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+}
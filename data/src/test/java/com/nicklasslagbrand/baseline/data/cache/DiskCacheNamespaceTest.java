@@ -0,0 +1,205 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class DiskCacheNamespaceTest {
+
+    private static final long MAX_SIZE_BYTES = 10;
+    private static final String NAMESPACE = "namespace";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final Executor queueingExecutor = pendingTasks::add;
+
+    private DiskCacheNamespace diskCacheNamespace;
+
+    @Before
+    public void setUp() {
+        diskCacheNamespace = createDiskCacheNamespace();
+        runPendingTasks();
+    }
+
+    @Test
+    public void testWrittenFilesAreAccounted() throws IOException {
+        write("first", 4);
+        write("second", 3);
+
+        assertThat(diskCacheNamespace.size(), is(7L));
+        assertThat(pendingTasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedFileIsDeletedOverBudget() throws IOException {
+        write("first", 4);
+        write("second", 4);
+        diskCacheNamespace.recordRead("first");
+        write("third", 4);
+
+        runPendingTasks();
+
+        assertThat(exists("first"), is(true));
+        assertThat(exists("second"), is(false));
+        assertThat(exists("third"), is(true));
+        assertThat(diskCacheNamespace.size(), is(8L));
+    }
+
+    @Test
+    public void testPinnedFileIsNeverDeleted() throws IOException {
+        diskCacheNamespace.pin("pinned");
+        write("pinned", 4);
+        write("second", 4);
+        write("third", 4);
+
+        runPendingTasks();
+
+        assertThat(exists("pinned"), is(true));
+        assertThat(exists("second"), is(false));
+    }
+
+    @Test
+    public void testNoTrimIsScheduledWhenOnlyPinnedFilesAreOverBudget() throws IOException {
+        diskCacheNamespace.pin("pinned");
+        write("pinned", 12);
+        write("pinned", 14);
+
+        assertThat(pendingTasks.isEmpty(), is(true));
+        assertThat(diskCacheNamespace.size(), is(14L));
+    }
+
+    @Test
+    public void testFilePinnedOnceWrittenIsNoLongerDeleted() throws IOException {
+        write("pinned", 4);
+        diskCacheNamespace.pin("pinned");
+        write("second", 4);
+        write("third", 4);
+
+        runPendingTasks();
+
+        assertThat(exists("pinned"), is(true));
+        assertThat(exists("second"), is(false));
+        assertThat(exists("third"), is(true));
+    }
+
+    @Test
+    public void testAccessOrderSurvivesRestart() throws IOException {
+        write("first", 4);
+        write("second", 4);
+        diskCacheNamespace.recordRead("first");
+        write("third", 1);
+
+        diskCacheNamespace = createDiskCacheNamespace();
+        write("fourth", 4);
+        runPendingTasks();
+
+        assertThat(exists("first"), is(true));
+        assertThat(exists("second"), is(false));
+        assertThat(exists("third"), is(true));
+    }
+
+    @Test
+    public void testUntrackedFilesAreDeletedFirst() throws IOException {
+        createFile("untracked", 4);
+        write("first", 4);
+        write("second", 4);
+
+        runPendingTasks();
+
+        assertThat(exists("untracked"), is(false));
+        assertThat(exists("first"), is(true));
+    }
+
+    @Test
+    public void testRemovedFileIsNoLongerAccounted() throws IOException {
+        write("first", 4);
+
+        new File(directory(), "first").delete();
+        diskCacheNamespace.recordRemoval("first");
+
+        assertThat(diskCacheNamespace.size(), is(0L));
+    }
+
+    @Test
+    public void testContainsFilesKnownToTheNamespace() throws IOException {
+        write("first", 4);
+        createFile("untracked", 4);
+
+        assertThat(diskCacheNamespace.contains("first"), is(true));
+        assertThat(diskCacheNamespace.contains("untracked"), is(false));
+
+        new File(directory(), "first").delete();
+        diskCacheNamespace.recordRemoval("first");
+        diskCacheNamespace = createDiskCacheNamespace();
+
+        assertThat(diskCacheNamespace.contains("first"), is(false));
+        assertThat(diskCacheNamespace.contains("untracked"), is(true));
+    }
+
+    @Test
+    public void testTemporaryFilesAreDeletedWhenOpened() throws IOException {
+        createFile("image.tmp", 4);
+
+        assertThat(diskCacheNamespace.size(), is(0L));
+        assertThat(exists("image.tmp"), is(false));
+    }
+
+    private DiskCacheNamespace createDiskCacheNamespace() {
+        return new DiskCacheManager(temporaryFolder.getRoot(), MAX_SIZE_BYTES, queueingExecutor).namespace(NAMESPACE);
+    }
+
+    private void write(String name, int length) throws IOException {
+        createFile(name, length);
+        diskCacheNamespace.recordWrite(name);
+    }
+
+    private void createFile(String name, int length) throws IOException {
+        directory().mkdirs();
+        final FileOutputStream outputStream = new FileOutputStream(new File(directory(), name));
+        try {
+            outputStream.write(new byte[length]);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private boolean exists(String name) {
+        return new File(directory(), name).exists();
+    }
+
+    private File directory() {
+        return new File(temporaryFolder.getRoot(), NAMESPACE);
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+}
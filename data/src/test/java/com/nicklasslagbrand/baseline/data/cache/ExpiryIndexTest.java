@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ExpiryIndexTest {
+
+    private ExpiryIndex expiryIndex;
+
+    @Before
+    public void setUp() {
+        expiryIndex = new ExpiryIndex();
+    }
+
+    @Test
+    public void testWrittenAt() {
+        expiryIndex.put(1, 100, 200);
+
+        assertThat(expiryIndex.writtenAt(1), is(100L));
+        assertThat(expiryIndex.writtenAt(2), is(-1L));
+    }
+
+    @Test
+    public void testOnlyDueEntriesAreEvictable() {
+        expiryIndex.put(1, 0, 300);
+        expiryIndex.put(2, 0, 100);
+        expiryIndex.put(3, 0, 200);
+
+        assertThat(expiryIndex.pollEvictable(200), is(Arrays.asList(2, 3)));
+        assertThat(expiryIndex.writtenAt(2), is(-1L));
+        assertThat(expiryIndex.writtenAt(1), is(0L));
+        assertThat(expiryIndex.size(), is(1));
+    }
+
+    @Test
+    public void testReplacedEntryIsEvictedOnItsNewTime() {
+        expiryIndex.put(1, 0, 100);
+        expiryIndex.put(1, 50, 150);
+
+        assertThat(expiryIndex.pollEvictable(100).isEmpty(), is(true));
+        assertThat(expiryIndex.pollEvictable(150), is(Collections.singletonList(1)));
+    }
+
+    @Test
+    public void testRemovedEntryIsNotEvictable() {
+        expiryIndex.put(1, 0, 100);
+        expiryIndex.remove(1);
+
+        assertThat(expiryIndex.pollEvictable(100).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testReplacingEntriesKeepsOneEntryPerKey() {
+        for (int i = 0; i < 1000; i++) {
+            expiryIndex.put(i % 10, i, 10000 + i);
+        }
+
+        assertThat(expiryIndex.size(), is(10));
+        assertThat(expiryIndex.pollEvictable(20000).size(), is(10));
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import com.nicklasslagbrand.baseline.data.cache.serializer.UserEntitySerializer;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+import com.nicklasslagbrand.baseline.data.net.ResponseValidators;
+import com.nicklasslagbrand.baseline.domain.executor.ThreadExecutor;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserCacheImplTest {
+
+    private static final int FAKE_USER_ID = 123;
+    private static final long ONE_HOUR_MS = 60 * 60 * 1000;
+    private static final int USER_LIST_KEY = Integer.MIN_VALUE;
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Tue, 15 Nov 2016 08:12:31 GMT";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private UserEntitySerializer mockSerializer;
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final ThreadExecutor queueingExecutor = pendingTasks::add;
+
+    private UserEntity fakeUserEntity;
+
+    @Before
+    public void setUp() {
+        fakeUserEntity = new UserEntity();
+        fakeUserEntity.setUserId(FAKE_USER_ID);
+        given(mockSerializer.serialize(any(UserEntity.class))).willReturn(new byte[] { 1 });
+        given(mockSerializer.deserialize(any(ByteBuffer.class))).willReturn(fakeUserEntity);
+    }
+
+    @Test
+    public void testStoredEntriesAreReportedOnceLoadedInBackground() throws IOException {
+        storeFakeUser(System.currentTimeMillis());
+        final UserCacheImpl userCache = createUserCache();
+
+        assertThat(userCache.isCached(FAKE_USER_ID), is(false));
+        assertThat(userCache.isExpired(FAKE_USER_ID), is(true));
+
+        runPendingTasks();
+
+        assertThat(userCache.isCached(FAKE_USER_ID), is(true));
+        assertThat(userCache.isExpired(FAKE_USER_ID), is(false));
+    }
+
+    @Test
+    public void testPutEntryIsFreshBeforeBeingWritten() {
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+
+        assertThat(userCache.isCached(FAKE_USER_ID), is(true));
+        assertThat(userCache.isExpired(FAKE_USER_ID), is(false));
+    }
+
+    @Test
+    public void testLoadingKeepsNewerWriteTimes() throws IOException {
+        storeFakeUser(System.currentTimeMillis() - ONE_HOUR_MS);
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+        runPendingTasks();
+
+        assertThat(userCache.isExpired(FAKE_USER_ID), is(false));
+    }
+
+    @Test
+    public void testStaleEntryIsExpiredButKept() throws IOException {
+        storeFakeUser(System.currentTimeMillis() - ONE_HOUR_MS);
+        final UserCacheImpl userCache = createUserCache();
+        runPendingTasks();
+
+        assertThat(userCache.isExpired(FAKE_USER_ID), is(true));
+        assertThat(userCache.isCached(FAKE_USER_ID), is(true));
+    }
+
+    @Test
+    public void testEntryStaleForTooLongIsEvicted() throws IOException {
+        storeFakeUser(System.currentTimeMillis() - CachePolicy.DEFAULT_MAX_STALE_MS - ONE_HOUR_MS);
+        final UserCacheImpl userCache = createUserCache();
+        runPendingTasks();
+
+        assertThat(userCache.isCached(FAKE_USER_ID), is(false));
+        assertThat(storeContainsFakeUser(), is(false));
+    }
+
+    @Test
+    public void testCorruptedEntryIsNoLongerCachedOnceRead() throws IOException {
+        storeFakeUser(System.currentTimeMillis());
+        corruptLastByte(storeFile());
+        final UserCacheImpl userCache = createUserCache();
+        runPendingTasks();
+
+        userCache.get(FAKE_USER_ID).test().assertError(UserNotFoundException.class);
+
+        assertThat(userCache.isCached(FAKE_USER_ID), is(false));
+    }
+
+    @Test
+    public void testPutsAreWrittenInOneBatch() {
+        final UserCacheImpl userCache = createUserCache();
+        final int tasksBeforePuts = pendingTasks.size();
+
+        for (int userId = 0; userId < 50; userId++) {
+            final UserEntity userEntity = new UserEntity();
+            userEntity.setUserId(userId);
+            userCache.put(userEntity);
+        }
+
+        assertThat(pendingTasks.size() - tasksBeforePuts, is(1));
+    }
+
+    @Test
+    public void testPutReplacesCachedUser() throws IOException {
+        final UserEntity updatedUserEntity = new UserEntity();
+        updatedUserEntity.setUserId(FAKE_USER_ID);
+        updatedUserEntity.setFullname("updated");
+        given(mockSerializer.serialize(updatedUserEntity)).willReturn(new byte[] { 2 });
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+        userCache.flush();
+        userCache.put(updatedUserEntity);
+        userCache.flush();
+
+        assertThat(storedFakeUser(), is(ByteBuffer.wrap(new byte[] { 2 })));
+    }
+
+    @Test
+    public void testPutOfUnchangedFreshUserIsNotWritten() throws IOException {
+        final UserEntity sameUserEntity = new UserEntity();
+        sameUserEntity.setUserId(FAKE_USER_ID);
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+        userCache.flush();
+        final int tasksBeforePut = pendingTasks.size();
+        userCache.put(sameUserEntity);
+
+        assertThat(pendingTasks.size(), is(tasksBeforePut));
+    }
+
+    @Test
+    public void testListElementsAreNotCachedUsers() throws IOException {
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.putAll(Collections.singletonList(fakeUserEntity), null);
+        userCache.flush();
+
+        assertThat(userCache.isListCached(), is(true));
+        assertThat(userCache.isCached(FAKE_USER_ID), is(false));
+        assertThat(storeContainsFakeUser(), is(false));
+
+        final UserCacheImpl reopenedUserCache = createUserCache();
+        runPendingTasks();
+
+        assertThat(reopenedUserCache.isListCached(), is(true));
+        assertThat(reopenedUserCache.isCached(FAKE_USER_ID), is(false));
+    }
+
+    @Test
+    public void testListDoesNotReplaceCachedUser() throws IOException {
+        final UserEntity summaryUserEntity = new UserEntity();
+        summaryUserEntity.setUserId(FAKE_USER_ID);
+        summaryUserEntity.setFullname("summary");
+        given(mockSerializer.serialize(summaryUserEntity)).willReturn(new byte[] { 2 });
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+        userCache.putAll(Collections.singletonList(summaryUserEntity), null);
+        userCache.flush();
+
+        assertThat(storedFakeUser(), is(ByteBuffer.wrap(new byte[] { 1 })));
+    }
+
+    @Test
+    public void testCachedListIsReadInOrder() {
+        final UserEntity otherUserEntity = new UserEntity();
+        otherUserEntity.setUserId(FAKE_USER_ID + 1);
+        given(mockSerializer.serialize(otherUserEntity)).willReturn(new byte[] { 2, 2 });
+        given(mockSerializer.deserialize(ByteBuffer.wrap(new byte[] { 2, 2 }))).willReturn(otherUserEntity);
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.putAll(Arrays.asList(fakeUserEntity, otherUserEntity), null);
+        userCache.flush();
+
+        final List<UserEntity> userEntities = userCache.getAll().blockingFirst();
+        assertThat(userEntities.size(), is(2));
+        assertThat(userEntities.get(0), is(fakeUserEntity));
+        assertThat(userEntities.get(1), is(otherUserEntity));
+    }
+
+    @Test
+    public void testListValidatorsAreStoredWithTheList() {
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.putAll(Collections.singletonList(fakeUserEntity), new ResponseValidators(ETAG, LAST_MODIFIED));
+        userCache.flush();
+
+        final UserCacheImpl reopenedUserCache = createUserCache();
+        final ResponseValidators validators = reopenedUserCache.getListValidators();
+        assertThat(validators.getEtag(), is(ETAG));
+        assertThat(validators.getLastModified(), is(LAST_MODIFIED));
+        assertThat(reopenedUserCache.getAll().blockingFirst(), is(Collections.singletonList(fakeUserEntity)));
+    }
+
+    @Test
+    public void testListWithoutValidatorsHasNone() {
+        final UserCacheImpl userCache = createUserCache();
+
+        assertThat(userCache.getListValidators(), is(nullValue()));
+
+        userCache.putAll(Collections.singletonList(fakeUserEntity), new ResponseValidators(null, null));
+
+        assertThat(userCache.getListValidators(), is(nullValue()));
+    }
+
+    @Test
+    public void testRefreshedListIsFreshAgain() throws IOException {
+        final UserCacheImpl userCache = createUserCache();
+        userCache.putAll(Collections.singletonList(fakeUserEntity), new ResponseValidators(ETAG, null));
+        userCache.flush();
+        rewriteStoredList(System.currentTimeMillis() - ONE_HOUR_MS);
+
+        final UserCacheImpl reopenedUserCache = createUserCache();
+        runPendingTasks();
+        assertThat(reopenedUserCache.isListExpired(), is(true));
+
+        reopenedUserCache.refreshList();
+        reopenedUserCache.flush();
+
+        assertThat(reopenedUserCache.isListExpired(), is(false));
+        final UserCacheImpl refreshedUserCache = createUserCache();
+        runPendingTasks();
+        assertThat(refreshedUserCache.isListExpired(), is(false));
+        assertThat(refreshedUserCache.getListValidators().getEtag(), is(ETAG));
+        assertThat(refreshedUserCache.getAll().blockingFirst(), is(Collections.singletonList(fakeUserEntity)));
+    }
+
+    @Test
+    public void testPutOfUnchangedStoredUserIsNotWritten() throws IOException {
+        final UserEntity sameUserEntity = new UserEntity();
+        sameUserEntity.setUserId(FAKE_USER_ID);
+        storeFakeUser(System.currentTimeMillis());
+        final UserCacheImpl userCache = createUserCache();
+        runPendingTasks();
+
+        userCache.put(sameUserEntity);
+
+        assertThat(pendingTasks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void testFlushStoresPendingPuts() throws IOException {
+        final UserCacheImpl userCache = createUserCache();
+
+        userCache.put(fakeUserEntity);
+        userCache.flush();
+
+        assertThat(storeContainsFakeUser(), is(true));
+    }
+
+    private UserCacheImpl createUserCache() {
+        final CachePolicy cachePolicy =
+                new CachePolicy(CachePolicy.DEFAULT_USER_TTL_MS, CachePolicy.DEFAULT_USER_LIST_TTL_MS,
+                CachePolicy.DEFAULT_MAX_STALE_MS);
+        final DiskCacheManager diskCacheManager = new DiskCacheManager(temporaryFolder.getRoot(), queueingExecutor);
+        return new UserCacheImpl(diskCacheManager, mockSerializer, cachePolicy, queueingExecutor);
+    }
+
+    private void storeFakeUser(long writtenAt) throws IOException {
+        final AppendOnlyStore store = new AppendOnlyStore(storeFile());
+        store.put(FAKE_USER_ID, new byte[] { 1 }, writtenAt);
+        store.close();
+    }
+
+    private void rewriteStoredList(long writtenAt) throws IOException {
+        final AppendOnlyStore store = new AppendOnlyStore(storeFile());
+        try {
+            store.put(USER_LIST_KEY, readBytes(store.get(USER_LIST_KEY)), writtenAt);
+        } finally {
+            store.close();
+        }
+    }
+
+    private boolean storeContainsFakeUser() throws IOException {
+        final AppendOnlyStore store = new AppendOnlyStore(storeFile());
+        try {
+            return store.contains(FAKE_USER_ID);
+        } finally {
+            store.close();
+        }
+    }
+
+    private ByteBuffer storedFakeUser() throws IOException {
+        final AppendOnlyStore store = new AppendOnlyStore(storeFile());
+        try {
+            final ByteBuffer value = store.get(FAKE_USER_ID);
+            return (value != null) ? ByteBuffer.wrap(readBytes(value)) : null;
+        } finally {
+            store.close();
+        }
+    }
+
+    private static void corruptLastByte(File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            final int lastByte = randomAccessFile.read();
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(lastByte ^ 0xff);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private File storeFile() {
+        return new File(new File(temporaryFolder.getRoot(), "users"), "users.log");
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+}
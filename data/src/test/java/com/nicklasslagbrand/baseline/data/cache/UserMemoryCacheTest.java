@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserMemoryCacheTest {
+
+    private static final int FAKE_USER_ID = 123;
+
+    private UserMemoryCache userMemoryCache;
+    private int entrySize;
+
+    @Before
+    public void setUp() {
+        entrySize = UserMemoryCache.sizeOf(createUserEntity(FAKE_USER_ID));
+        userMemoryCache = new UserMemoryCache(entrySize * 2);
+    }
+
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        userMemoryCache.put(createUserEntity(FAKE_USER_ID));
+
+        assertThat(userMemoryCache.get(FAKE_USER_ID), is(notNullValue()));
+        assertThat(userMemoryCache.get(FAKE_USER_ID + 1), is(nullValue()));
+        assertThat(userMemoryCache.hitCount(), is(1L));
+        assertThat(userMemoryCache.missCount(), is(1L));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedWhenOverBudget() {
+        userMemoryCache.put(createUserEntity(1));
+        userMemoryCache.put(createUserEntity(2));
+        userMemoryCache.get(1);
+        userMemoryCache.put(createUserEntity(3));
+
+        assertThat(userMemoryCache.contains(1), is(true));
+        assertThat(userMemoryCache.contains(2), is(false));
+        assertThat(userMemoryCache.contains(3), is(true));
+        assertThat(userMemoryCache.evictionCount(), is(1L));
+        assertThat(userMemoryCache.size(), is((long) entrySize * 2));
+    }
+
+    @Test
+    public void testReplacingAnEntryDoesNotGrowTheCache() {
+        userMemoryCache.put(createUserEntity(FAKE_USER_ID));
+        userMemoryCache.put(createUserEntity(FAKE_USER_ID));
+
+        assertThat(userMemoryCache.size(), is((long) entrySize));
+        assertThat(userMemoryCache.evictionCount(), is(0L));
+    }
+
+    @Test
+    public void testEvictAll() {
+        userMemoryCache.put(createUserEntity(FAKE_USER_ID));
+        userMemoryCache.evictAll();
+
+        assertThat(userMemoryCache.contains(FAKE_USER_ID), is(false));
+        assertThat(userMemoryCache.size(), is(0L));
+    }
+
+    private UserEntity createUserEntity(int userId) {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setUserId(userId);
+        userEntity.setFullname("Simon Hill");
+        return userEntity;
+    }
+}
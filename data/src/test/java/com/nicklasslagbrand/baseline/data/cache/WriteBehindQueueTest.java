@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class WriteBehindQueueTest {
+
+    private static final int FAKE_KEY = 7;
+    private static final long FAKE_TIMESTAMP = 1000L;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<Runnable> pendingTasks = new ArrayList<>();
+    private final Executor queueingExecutor = pendingTasks::add;
+
+    private AppendOnlyStore store;
+    private WriteBehindQueue writeQueue;
+
+    @Before
+    public void setUp() {
+        store = new AppendOnlyStore(new File(temporaryFolder.getRoot(), "store.log"));
+        writeQueue = new WriteBehindQueue(store, queueingExecutor, false, null);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    public void testPutsAreWrittenByOneTask() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            writeQueue.put(i, bytes("value_" + i), FAKE_TIMESTAMP);
+        }
+
+        assertThat(pendingTasks.size(), is(1));
+        assertThat(store.contains(FAKE_KEY), is(false));
+
+        runPendingTasks();
+
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("value_7"))));
+        assertThat(store.get(99), is(equalTo(buffer("value_99"))));
+    }
+
+    @Test
+    public void testLastPendingWriteWins() throws IOException {
+        writeQueue.put(FAKE_KEY, bytes("old"), FAKE_TIMESTAMP);
+        writeQueue.put(FAKE_KEY, bytes("new"), FAKE_TIMESTAMP + 1);
+        final long sizeBeforeWriting = store.size();
+
+        runPendingTasks();
+
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("new"))));
+        assertThat(store.timestamps().get(FAKE_KEY), is(FAKE_TIMESTAMP + 1));
+        assertThat(store.size() - sizeBeforeWriting, is(20L + "new".length()));
+    }
+
+    @Test
+    public void testPendingValueCanBeRead() {
+        writeQueue.put(FAKE_KEY, bytes("pending"), FAKE_TIMESTAMP);
+
+        assertThat(writeQueue.getPending(FAKE_KEY), is(equalTo(buffer("pending"))));
+        assertThat(writeQueue.isPendingRemoval(FAKE_KEY), is(false));
+    }
+
+    @Test
+    public void testPendingRemoval() throws IOException {
+        store.put(FAKE_KEY, bytes("stored"));
+        writeQueue.remove(FAKE_KEY);
+
+        assertThat(writeQueue.getPending(FAKE_KEY), is(nullValue()));
+        assertThat(writeQueue.isPendingRemoval(FAKE_KEY), is(true));
+
+        runPendingTasks();
+
+        assertThat(store.contains(FAKE_KEY), is(false));
+    }
+
+    @Test
+    public void testClearDropsPendingWrites() throws IOException {
+        store.put(FAKE_KEY, bytes("stored"));
+        writeQueue.put(FAKE_KEY + 1, bytes("pending"), FAKE_TIMESTAMP);
+
+        writeQueue.clear();
+
+        assertThat(writeQueue.isPendingRemoval(FAKE_KEY), is(true));
+        runPendingTasks();
+        assertThat(store.contains(FAKE_KEY), is(false));
+        assertThat(store.contains(FAKE_KEY + 1), is(false));
+    }
+
+    @Test
+    public void testFlushWritesInTheCallingThread() throws IOException {
+        writeQueue.put(FAKE_KEY, bytes("value"), FAKE_TIMESTAMP);
+
+        writeQueue.flush();
+
+        assertThat(store.get(FAKE_KEY), is(equalTo(buffer("value"))));
+        assertThat(writeQueue.getPending(FAKE_KEY), is(nullValue()));
+    }
+
+    @Test
+    public void testWritesAfterDrainScheduleAnotherTask() {
+        writeQueue.put(FAKE_KEY, bytes("first"), FAKE_TIMESTAMP);
+        runPendingTasks();
+
+        writeQueue.put(FAKE_KEY, bytes("second"), FAKE_TIMESTAMP);
+
+        assertThat(pendingTasks.size(), is(1));
+    }
+
+    private void runPendingTasks() {
+        while (!pendingTasks.isEmpty()) {
+            pendingTasks.remove(0).run();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes();
+    }
+
+    private static ByteBuffer buffer(String value) {
+        return ByteBuffer.wrap(bytes(value));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.cache.serializer;
+
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.nio.ByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BinaryUserEntitySerializerTest {
+
+    private static final String JSON_RESPONSE = "{\"id\":1,\"cover_url\":\"http://www.android10.org/myapi/cover_1.jpg\","
+            + "\"full_name\":\"Simon Hill\",\"description\":\"Curabitur gravida nisi at nibh.\",\"followers\":7484,"
+            + "\"email\":\"jcooper@babbleset.edu\"}";
+
+    private BinaryUserEntitySerializer binarySerializer;
+    private JsonUserEntitySerializer jsonSerializer;
+
+    @Before
+    public void setUp() {
+        jsonSerializer = new JsonUserEntitySerializer(new Serializer());
+        binarySerializer = new BinaryUserEntitySerializer(jsonSerializer);
+    }
+
+    @Test
+    public void testSerializeHappyCase() {
+        final UserEntity userEntityOne = createUserEntity();
+
+        final byte[] bytes = binarySerializer.serialize(userEntityOne);
+        final UserEntity userEntityTwo = binarySerializer.deserialize(ByteBuffer.wrap(bytes));
+
+        assertThat(userEntityTwo.getUserId(), is(userEntityOne.getUserId()));
+        assertThat(userEntityTwo.getFollowers(), is(userEntityOne.getFollowers()));
+        assertThat(userEntityTwo.getCoverUrl(), is(equalTo(userEntityOne.getCoverUrl())));
+        assertThat(userEntityTwo.getFullname(), is(equalTo(userEntityOne.getFullname())));
+        assertThat(userEntityTwo.getDescription(), is(equalTo(userEntityOne.getDescription())));
+        assertThat(userEntityTwo.getEmail(), is(nullValue()));
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() {
+        final UserEntity userEntity = createUserEntity();
+
+        final int binaryLength = binarySerializer.serialize(userEntity).length;
+        final int jsonLength = jsonSerializer.serialize(userEntity).length;
+
+        assertThat(binaryLength < jsonLength, is(true));
+    }
+
+    @Test
+    public void testDeserializeLegacyJson() {
+        final UserEntity userEntity = binarySerializer.deserialize(ByteBuffer.wrap(JSON_RESPONSE.getBytes()));
+
+        assertThat(userEntity.getUserId(), is(1));
+        assertThat(userEntity.getFullname(), is("Simon Hill"));
+        assertThat(userEntity.getFollowers(), is(7484));
+    }
+
+    @Test
+    public void testDeserializeUnknownVersion() {
+        final UserEntity userEntity = binarySerializer.deserialize(ByteBuffer.wrap(new byte[] { 2, 0, 0 }));
+
+        assertThat(userEntity, is(nullValue()));
+    }
+
+    @Test
+    public void testDeserializeTruncatedBytes() {
+        final byte[] bytes = binarySerializer.serialize(createUserEntity());
+        final ByteBuffer truncated = ByteBuffer.wrap(bytes, 0, bytes.length / 2);
+
+        assertThat(binarySerializer.deserialize(truncated), is(nullValue()));
+    }
+
+    private UserEntity createUserEntity() {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setUserId(300);
+        userEntity.setFollowers(7484);
+        userEntity.setCoverUrl("http://www.android10.org/myapi/cover_1.jpg");
+        userEntity.setFullname("Simon Hill");
+        userEntity.setDescription("Curabitur gravida nisi at nibh. \u00dcberraschung.");
+        return userEntity;
+    }
+}
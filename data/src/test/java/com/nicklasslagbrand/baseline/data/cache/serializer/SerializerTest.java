@@ -16,6 +16,8 @@
 package com.nicklasslagbrand.baseline.data.cache.serializer;
 
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -58,6 +60,16 @@ public class SerializerTest {
         assertThat(userEntityOne.getFollowers(), is(userEntityTwo.getFollowers()));
     }
 
+    @Test
+    public void testDeserializeFromBuffer() {
+        final ByteBuffer buffer = ByteBuffer.wrap(JSON_RESPONSE.getBytes(Charset.forName("UTF-8")));
+
+        final UserEntity userEntity = serializer.deserialize(buffer, UserEntity.class);
+
+        assertThat(userEntity.getUserId(), is(1));
+        assertThat(userEntity.getFullname(), is("Simon Hill"));
+    }
+
     @Test
     public void testDesearializeHappyCase() {
         final UserEntity userEntity = serializer.deserialize(JSON_RESPONSE, UserEntity.class);
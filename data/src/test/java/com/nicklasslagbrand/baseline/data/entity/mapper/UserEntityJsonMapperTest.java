@@ -16,7 +16,10 @@
 package com.nicklasslagbrand.baseline.data.entity.mapper;
 
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.Collection;
 import org.junit.Before;
 import org.junit.Rule;
@@ -82,6 +85,19 @@ public class UserEntityJsonMapperTest {
         assertThat(userEntityCollection.size(), is(2));
     }
 
+    @Test
+    public void testTransformUserEntityStreamHappyCase() throws IOException {
+        JsonReader jsonReader = new JsonReader(new StringReader(JSON_RESPONSE_USER_COLLECTION));
+        jsonReader.beginArray();
+
+        UserEntity userEntityOne = userEntityJsonMapper.transformUserEntity(jsonReader);
+        UserEntity userEntityTwo = userEntityJsonMapper.transformUserEntity(jsonReader);
+
+        assertThat(userEntityOne.getUserId(), is(1));
+        assertThat(userEntityTwo.getUserId(), is(12));
+        assertThat(jsonReader.hasNext(), is(false));
+    }
+
     @Test
     public void testTransformUserEntityNotValidResponse() {
         expectedException.expect(JsonSyntaxException.class);
@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ApiClientTest {
+
+    private MockWebServer mockWebServer;
+    private ApiClient apiClient;
+    private List<RequestMetrics> measuredRequests;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        measuredRequests = new ArrayList<>();
+        apiClient = new ApiClient(ApiClient.DEFAULT_MAX_IDLE_CONNECTIONS, ApiClient.DEFAULT_KEEP_ALIVE_DURATION_MS);
+        apiClient.setMetricsListener(measuredRequests::add);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testConsecutiveRequestsReuseTheConnection() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        final String url = mockWebServer.url("/users/1").toString();
+
+        ApiConnection.createGET(apiClient, url).requestSyncCall();
+        ApiConnection.createGET(apiClient, url).requestSyncCall();
+
+        assertThat(mockWebServer.takeRequest().getSequenceNumber(), is(0));
+        assertThat(mockWebServer.takeRequest().getSequenceNumber(), is(1));
+    }
+
+    @Test
+    public void testRequestsAreMeasured() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        final String url = mockWebServer.url("/users/1").toString();
+
+        ApiConnection.createGET(apiClient, url).requestSyncCall();
+        ApiConnection.createGET(apiClient, url).requestSyncCall();
+
+        assertThat(measuredRequests.size(), is(2));
+        assertThat(measuredRequests.get(0).isConnectionReused(), is(false));
+        assertThat(measuredRequests.get(1).isConnectionReused(), is(true));
+        assertThat(measuredRequests.get(1).getProtocol(), is("http/1.1"));
+        assertThat(measuredRequests.get(1).getUrl(), is(url));
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.entity.mapper.UserEntityJsonMapper;
+import com.nicklasslagbrand.baseline.data.exception.NetworkConnectionException;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchingRestApiTest {
+
+    private static final long BATCH_WINDOW_MS = 50;
+    private static final long RESPONSE_DELAY_MS = 200;
+    private static final String USERS_RESPONSE =
+            "[{\"id\":1,\"full_name\":\"Simon Hill\",\"email\":\"simon@hill.com\"},"
+            + "{\"id\":2,\"full_name\":\"Ryan Hunter\",\"email\":\"ryan@hunter.com\"},"
+            + "{\"id\":3,\"full_name\":\"Sandra Ortiz\",\"email\":\"sandra@ortiz.com\"}]";
+    private static final String USER_LIST_RESPONSE = "[{\"id\":1,\"full_name\":\"Simon Hill\",\"followers\":7},"
+            + "{\"id\":2,\"full_name\":\"Ryan Hunter\",\"followers\":3}]";
+
+    private MockWebServer mockWebServer;
+    private BatchingRestApi batchingRestApi;
+
+    @Mock private Context mockContext;
+    @Mock private ConnectivityManager mockConnectivityManager;
+    @Mock private NetworkInfo mockNetworkInfo;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        given(mockContext.getApplicationContext()).willReturn(mockContext);
+        given(mockContext.getSystemService(Context.CONNECTIVITY_SERVICE)).willReturn(mockConnectivityManager);
+        given(mockConnectivityManager.getActiveNetworkInfo()).willReturn(mockNetworkInfo);
+        given(mockNetworkInfo.isConnectedOrConnecting()).willReturn(true);
+
+        final ApiClient apiClient =
+                new ApiClient(ApiClient.DEFAULT_MAX_IDLE_CONNECTIONS, ApiClient.DEFAULT_KEEP_ALIVE_DURATION_MS);
+        apiClient.okHttpClient().interceptors().add(chain -> chain.proceed(redirectToMockWebServer(chain.request())));
+        batchingRestApi = new BatchingRestApi(new RestApiImpl(mockContext, new UserEntityJsonMapper(), apiClient),
+                BATCH_WINDOW_MS, 2, Schedulers.io());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testRequestsWithinTheWindowAreBatched() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE));
+
+        final TestObserver<UserEntity> first = batchingRestApi.userEntityById(1).test();
+        final TestObserver<UserEntity> second = batchingRestApi.userEntityById(1).test();
+
+        awaitAll(first, second);
+        assertThat(mockWebServer.getRequestCount(), is(1));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1"));
+        assertThat(first.values().get(0).getFullname(), is("Simon Hill"));
+        assertThat(second.values().get(0).getFullname(), is("Simon Hill"));
+    }
+
+    @Test
+    public void testFullBatchIsSentRightAway() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE));
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE));
+
+        final TestObserver<UserEntity> first = batchingRestApi.userEntityById(1).test();
+        final TestObserver<UserEntity> second = batchingRestApi.userEntityById(2).test();
+        final TestObserver<UserEntity> third = batchingRestApi.userEntityById(3).test();
+
+        awaitAll(first, second, third);
+        assertThat(mockWebServer.getRequestCount(), is(2));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1,2"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=3"));
+        assertThat(second.values().get(0).getFullname(), is("Ryan Hunter"));
+        assertThat(third.values().get(0).getFullname(), is("Sandra Ortiz"));
+    }
+
+    @Test
+    public void testBatchedRequestsShareTheRoundTrip() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE)
+                                                .setBodyDelay(RESPONSE_DELAY_MS, TimeUnit.MILLISECONDS));
+
+        final long startMillis = System.currentTimeMillis();
+        final TestObserver<UserEntity> first = batchingRestApi.userEntityById(1).test();
+        final TestObserver<UserEntity> second = batchingRestApi.userEntityById(2).test();
+        awaitAll(first, second);
+        final long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        assertThat(mockWebServer.getRequestCount(), is(1));
+        assertThat(elapsedMillis < 2 * RESPONSE_DELAY_MS, is(true));
+    }
+
+    @Test
+    public void testUserMissingInTheResponseIsRequestedOnItsOwn() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(
+                "[{\"id\":1,\"full_name\":\"Simon Hill\",\"email\":\"simon@hill.com\"}]"));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"id\":7,\"full_name\":\"Pete Rogers\"}"));
+
+        final TestObserver<UserEntity> found = batchingRestApi.userEntityById(1).test();
+        final TestObserver<UserEntity> missing = batchingRestApi.userEntityById(7).test();
+
+        awaitAll(found, missing);
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1,7"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/7"));
+        found.assertValueCount(1);
+        assertThat(missing.values().get(0).getFullname(), is("Pete Rogers"));
+    }
+
+    @Test
+    public void testUserListSummariesAreRequestedAgainOneByOne() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USER_LIST_RESPONSE));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"id\":1,\"full_name\":\"Simon Hill\","
+                + "\"email\":\"simon@hill.com\",\"description\":\"Writer\",\"followers\":7}"));
+
+        final TestObserver<UserEntity> testObserver = batchingRestApi.userEntityById(1).test();
+
+        awaitAll(testObserver);
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/1"));
+        assertThat(testObserver.values().get(0).getEmail(), is("simon@hill.com"));
+        assertThat(testObserver.values().get(0).getDescription(), is("Writer"));
+    }
+
+    @Test
+    public void testFailedBatchFallsBackToSingleRequests() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody("Not Found"));
+        mockWebServer.enqueue(new MockResponse().setBody("{\"id\":1,\"full_name\":\"Simon Hill\"}"));
+
+        final TestObserver<UserEntity> testObserver = batchingRestApi.userEntityById(1).test();
+
+        awaitAll(testObserver);
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1"));
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/1"));
+        assertThat(testObserver.values().get(0).getFullname(), is("Simon Hill"));
+    }
+
+    @Test
+    public void testUserFailingOnItsOwnTooIsAnError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody("Not Found"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404).setBody("Not Found"));
+
+        final TestObserver<UserEntity> testObserver = batchingRestApi.userEntityById(1).test();
+
+        awaitAll(testObserver);
+        testObserver.assertError(NetworkConnectionException.class);
+    }
+
+    @Test
+    public void testDisposedRequestIsLeftOutOfTheBatch() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE));
+
+        final TestObserver<UserEntity> disposed = batchingRestApi.userEntityById(3).test();
+        disposed.dispose();
+        final TestObserver<UserEntity> kept = batchingRestApi.userEntityById(1).test();
+
+        awaitAll(kept);
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1"));
+    }
+
+    private void awaitAll(TestObserver<?>... testObservers) {
+        for (TestObserver<?> testObserver : testObservers) {
+            assertThat(testObserver.awaitTerminalEvent(5, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    private Request redirectToMockWebServer(Request request) {
+        final HttpUrl url = request.httpUrl().newBuilder()
+                                   .scheme("http")
+                                   .host(mockWebServer.getHostName())
+                                   .port(mockWebServer.getPort())
+                                   .build();
+        return request.newBuilder().url(url).build();
+    }
+}
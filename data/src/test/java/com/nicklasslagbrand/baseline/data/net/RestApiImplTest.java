@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.net;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.entity.mapper.UserEntityJsonMapper;
+import com.nicklasslagbrand.baseline.data.exception.NetworkConnectionException;
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestApiImplTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final String LAST_MODIFIED = "Tue, 15 Nov 2016 08:12:31 GMT";
+    private static final String USERS_RESPONSE = "[{\"id\":1,\"full_name\":\"Simon Hill\"},"
+            + "{\"id\":2,\"full_name\":\"Ryan Hunter\"}]";
+
+    private MockWebServer mockWebServer;
+    private RestApiImpl restApi;
+
+    @Mock private Context mockContext;
+    @Mock private ConnectivityManager mockConnectivityManager;
+    @Mock private NetworkInfo mockNetworkInfo;
+
+    @Before
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        given(mockContext.getApplicationContext()).willReturn(mockContext);
+        given(mockContext.getSystemService(Context.CONNECTIVITY_SERVICE)).willReturn(mockConnectivityManager);
+        given(mockConnectivityManager.getActiveNetworkInfo()).willReturn(mockNetworkInfo);
+        given(mockNetworkInfo.isConnectedOrConnecting()).willReturn(true);
+
+        final ApiClient apiClient =
+                new ApiClient(ApiClient.DEFAULT_MAX_IDLE_CONNECTIONS, ApiClient.DEFAULT_KEEP_ALIVE_DURATION_MS);
+        apiClient.okHttpClient().interceptors().add(chain -> chain.proceed(redirectToMockWebServer(chain.request())));
+        restApi = new RestApiImpl(mockContext, new UserEntityJsonMapper(), apiClient);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testRequestWithoutValidatorsIsNotConditional() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE)
+                                                .setHeader("ETag", ETAG)
+                                                .setHeader("Last-Modified", LAST_MODIFIED));
+
+        final ValidatedResponse<List<UserEntity>> response = restApi.userEntityList(null).blockingFirst();
+
+        final RecordedRequest request = mockWebServer.takeRequest();
+        assertThat(request.getHeader("If-None-Match"), is(nullValue()));
+        assertThat(request.getHeader("If-Modified-Since"), is(nullValue()));
+        assertThat(response.isNotModified(), is(false));
+        assertThat(response.getValue().size(), is(2));
+        assertThat(response.getValidators().getEtag(), is(ETAG));
+        assertThat(response.getValidators().getLastModified(), is(LAST_MODIFIED));
+    }
+
+    @Test
+    public void testNotModifiedListIsReportedAsSuch() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+        final ValidatedResponse<List<UserEntity>> response =
+                restApi.userEntityList(new ResponseValidators(ETAG, LAST_MODIFIED)).blockingFirst();
+
+        final RecordedRequest conditionalRequest = mockWebServer.takeRequest();
+        assertThat(conditionalRequest.getHeader("If-None-Match"), is(ETAG));
+        assertThat(conditionalRequest.getHeader("If-Modified-Since"), is(LAST_MODIFIED));
+        assertThat(response.isNotModified(), is(true));
+        assertThat(response.getValue(), is(nullValue()));
+    }
+
+    @Test
+    public void testModifiedListIsDownloadedWithItsNewValidators() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("[{\"id\":3,\"full_name\":\"Sandra Ortiz\"}]")
+                                                .setHeader("ETag", "\"v2\""));
+
+        final ValidatedResponse<List<UserEntity>> response =
+                restApi.userEntityList(new ResponseValidators(ETAG, null)).blockingFirst();
+
+        assertThat(mockWebServer.takeRequest().getHeader("If-None-Match"), is(ETAG));
+        assertThat(response.isNotModified(), is(false));
+        assertThat(response.getValue().size(), is(1));
+        assertThat(response.getValue().get(0).getUserId(), is(3));
+        assertThat(response.getValidators().getEtag(), is("\"v2\""));
+    }
+
+    @Test
+    public void testTruncatedListIsAnError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody("[{\"id\":1,\"full_name\":\"Simon Hill\"},")
+                                                .setHeader("ETag", ETAG));
+
+        restApi.userEntityList(null).test().assertError(NetworkConnectionException.class);
+    }
+
+    @Test
+    public void testUnsuccessfulListResponseIsAnError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500).setBody("[]"));
+
+        restApi.userEntityList(null).test().assertError(NetworkConnectionException.class);
+    }
+
+    @Test
+    public void testNotModifiedListWithoutValidatorsIsAnError() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+        restApi.userEntityList(null).test().assertError(NetworkConnectionException.class);
+    }
+
+    @Test
+    public void testUsersByIdsAreRequestedInOneCall() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setBody(USERS_RESPONSE));
+
+        final List<UserEntity> userEntities = restApi.userEntitiesByIds(Arrays.asList(1, 2)).blockingFirst();
+
+        assertThat(mockWebServer.takeRequest().getPath(), is("/users/batch?ids=1,2"));
+        assertThat(userEntities.size(), is(2));
+        assertThat(userEntities.get(1).getFullname(), is("Ryan Hunter"));
+    }
+
+    private Request redirectToMockWebServer(Request request) {
+        final HttpUrl url = request.httpUrl().newBuilder()
+                                   .scheme("http")
+                                   .host(mockWebServer.getHostName())
+                                   .port(mockWebServer.getPort())
+                                   .build();
+        return request.newBuilder().url(url).build();
+    }
+}
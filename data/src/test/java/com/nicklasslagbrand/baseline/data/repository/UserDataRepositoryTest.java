@@ -21,17 +21,25 @@ import com.nicklasslagbrand.baseline.data.repository.datasource.UserDataStore;
 import com.nicklasslagbrand.baseline.data.repository.datasource.UserDataStoreFactory;
 import com.nicklasslagbrand.baseline.domain.User;
 import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 @RunWith(MockitoJUnitRunner.class)
 public class UserDataRepositoryTest {
@@ -50,7 +58,7 @@ public class UserDataRepositoryTest {
     public void setUp() {
         userDataRepository = new UserDataRepository(mockUserDataStoreFactory, mockUserEntityDataMapper);
         given(mockUserDataStoreFactory.create(anyInt())).willReturn(mockUserDataStore);
-        given(mockUserDataStoreFactory.createCloudDataStore()).willReturn(mockUserDataStore);
+        given(mockUserDataStoreFactory.createListDataStore()).willReturn(mockUserDataStore);
     }
 
     @Test
@@ -59,9 +67,9 @@ public class UserDataRepositoryTest {
         usersList.add(new UserEntity());
         given(mockUserDataStore.userEntityList()).willReturn(Observable.just(usersList));
 
-        userDataRepository.users();
+        userDataRepository.users().test();
 
-        verify(mockUserDataStoreFactory).createCloudDataStore();
+        verify(mockUserDataStoreFactory).createListDataStore();
         verify(mockUserDataStore).userEntityList();
     }
 
@@ -69,9 +77,41 @@ public class UserDataRepositoryTest {
     public void testGetUserHappyCase() {
         UserEntity userEntity = new UserEntity();
         given(mockUserDataStore.userEntityDetails(FAKE_USER_ID)).willReturn(Observable.just(userEntity));
-        userDataRepository.user(FAKE_USER_ID);
+        userDataRepository.user(FAKE_USER_ID).test();
 
         verify(mockUserDataStoreFactory).create(FAKE_USER_ID);
         verify(mockUserDataStore).userEntityDetails(FAKE_USER_ID);
     }
+
+    @Test
+    public void testDataStoreIsNotChosenBeforeSubscription() {
+        userDataRepository.users();
+        userDataRepository.user(FAKE_USER_ID);
+
+        verifyZeroInteractions(mockUserDataStoreFactory);
+    }
+
+    @Test
+    public void testDataStoreIsChosenOnTheSubscribingThread() {
+        final AtomicReference<Thread> listStoreThread = new AtomicReference<>();
+        final AtomicReference<Thread> detailsStoreThread = new AtomicReference<>();
+        given(mockUserDataStoreFactory.createListDataStore()).willAnswer(invocation -> {
+            listStoreThread.set(Thread.currentThread());
+            return mockUserDataStore;
+        });
+        given(mockUserDataStoreFactory.create(FAKE_USER_ID)).willAnswer(invocation -> {
+            detailsStoreThread.set(Thread.currentThread());
+            return mockUserDataStore;
+        });
+        given(mockUserDataStore.userEntityList()).willReturn(Observable.just(new ArrayList<>()));
+        given(mockUserDataStore.userEntityDetails(FAKE_USER_ID)).willReturn(Observable.just(new UserEntity()));
+
+        userDataRepository.users().subscribeOn(Schedulers.io()).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+        userDataRepository.user(FAKE_USER_ID).subscribeOn(Schedulers.io()).test().awaitTerminalEvent(5, TimeUnit.SECONDS);
+
+        assertThat(listStoreThread.get(), is(notNullValue()));
+        assertThat(listStoreThread.get(), is(not(Thread.currentThread())));
+        assertThat(detailsStoreThread.get(), is(notNullValue()));
+        assertThat(detailsStoreThread.get(), is(not(Thread.currentThread())));
+    }
 }
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.repository.datasource;
+
+import com.nicklasslagbrand.baseline.data.cache.UserCache;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.exception.NetworkConnectionException;
+import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+import io.reactivex.Observable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import static org.mockito.BDDMockito.given;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CacheThenCloudUserDataStoreTest {
+
+    private static final int FAKE_USER_ID = 123;
+
+    private CacheThenCloudUserDataStore cacheThenCloudUserDataStore;
+
+    @Mock private UserCache mockUserCache;
+    @Mock private UserDataStore mockCloudUserDataStore;
+
+    private List<UserEntity> cachedUserEntities;
+    private List<UserEntity> freshUserEntities;
+
+    @Before
+    public void setUp() {
+        cacheThenCloudUserDataStore = new CacheThenCloudUserDataStore(mockUserCache, mockCloudUserDataStore);
+        cachedUserEntities = Collections.singletonList(createUserEntity("Simon Hill"));
+        freshUserEntities = Collections.singletonList(createUserEntity("Simon J. Hill"));
+    }
+
+    @Test
+    public void testCachedListIsEmittedBeforeFreshList() {
+        given(mockUserCache.getAll()).willReturn(Observable.just(cachedUserEntities));
+        given(mockCloudUserDataStore.userEntityList()).willReturn(Observable.just(freshUserEntities));
+
+        cacheThenCloudUserDataStore.userEntityList()
+                                   .test()
+                                   .assertValueSequence(Arrays.asList(cachedUserEntities, freshUserEntities))
+                                   .assertComplete();
+    }
+
+    @Test
+    public void testFreshListIsEmittedWhenCacheFails() {
+        given(mockUserCache.getAll()).willReturn(Observable.error(new UserNotFoundException()));
+        given(mockCloudUserDataStore.userEntityList()).willReturn(Observable.just(freshUserEntities));
+
+        cacheThenCloudUserDataStore.userEntityList()
+                                   .test()
+                                   .assertValue(freshUserEntities)
+                                   .assertComplete();
+    }
+
+    @Test
+    public void testCloudFailureIsIgnoredAfterCachedList() {
+        given(mockUserCache.getAll()).willReturn(Observable.just(cachedUserEntities));
+        given(mockCloudUserDataStore.userEntityList())
+                .willReturn(Observable.error(new NetworkConnectionException()));
+
+        cacheThenCloudUserDataStore.userEntityList()
+                                   .test()
+                                   .assertValue(cachedUserEntities)
+                                   .assertComplete();
+    }
+
+    @Test
+    public void testCloudFailureIsReportedWithoutCachedList() {
+        given(mockUserCache.getAll()).willReturn(Observable.error(new UserNotFoundException()));
+        given(mockCloudUserDataStore.userEntityList())
+                .willReturn(Observable.error(new NetworkConnectionException()));
+
+        cacheThenCloudUserDataStore.userEntityList()
+                                   .test()
+                                   .assertError(NetworkConnectionException.class);
+    }
+
+    @Test
+    public void testCachedListEqualToFreshListIsEmittedOnce() {
+        given(mockUserCache.getAll()).willReturn(Observable.just(cachedUserEntities));
+        given(mockCloudUserDataStore.userEntityList())
+                .willReturn(Observable.just(Collections.singletonList(createUserEntity("Simon Hill"))));
+
+        cacheThenCloudUserDataStore.userEntityList()
+                                   .test()
+                                   .assertValue(cachedUserEntities)
+                                   .assertComplete();
+    }
+
+    @Test
+    public void testCachedDetailsAreEmittedBeforeFreshDetails() {
+        final UserEntity cachedUserEntity = createUserEntity("Simon Hill");
+        final UserEntity freshUserEntity = createUserEntity("Simon J. Hill");
+        given(mockUserCache.get(FAKE_USER_ID)).willReturn(Observable.just(cachedUserEntity));
+        given(mockCloudUserDataStore.userEntityDetails(FAKE_USER_ID)).willReturn(Observable.just(freshUserEntity));
+
+        cacheThenCloudUserDataStore.userEntityDetails(FAKE_USER_ID)
+                                   .test()
+                                   .assertResult(cachedUserEntity, freshUserEntity);
+    }
+
+    @Test
+    public void testUnchangedDetailsAreEmittedOnce() {
+        final UserEntity cachedUserEntity = createUserEntity("Simon Hill");
+        given(mockUserCache.get(FAKE_USER_ID)).willReturn(Observable.just(cachedUserEntity));
+        given(mockCloudUserDataStore.userEntityDetails(FAKE_USER_ID))
+                .willReturn(Observable.just(createUserEntity("Simon Hill")));
+
+        cacheThenCloudUserDataStore.userEntityDetails(FAKE_USER_ID)
+                                   .test()
+                                   .assertResult(cachedUserEntity);
+    }
+
+    @Test
+    public void testCloudFailureIsIgnoredAfterCachedDetails() {
+        final UserEntity cachedUserEntity = createUserEntity("Simon Hill");
+        given(mockUserCache.get(FAKE_USER_ID)).willReturn(Observable.just(cachedUserEntity));
+        given(mockCloudUserDataStore.userEntityDetails(FAKE_USER_ID))
+                .willReturn(Observable.error(new NetworkConnectionException()));
+
+        cacheThenCloudUserDataStore.userEntityDetails(FAKE_USER_ID)
+                                   .test()
+                                   .assertResult(cachedUserEntity);
+    }
+
+    private UserEntity createUserEntity(String fullname) {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setUserId(FAKE_USER_ID);
+        userEntity.setFullname(fullname);
+        return userEntity;
+    }
+}
@@ -17,8 +17,13 @@ package com.nicklasslagbrand.baseline.data.repository.datasource;
 
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
 import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+import com.nicklasslagbrand.baseline.data.net.ResponseValidators;
 import com.nicklasslagbrand.baseline.data.net.RestApi;
+import com.nicklasslagbrand.baseline.data.net.ValidatedResponse;
 import io.reactivex.Observable;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,12 +31,16 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CloudUserDataStoreTest {
 
     private static final int FAKE_USER_ID = 765;
+    private static final String ETAG = "\"v1\"";
 
     private CloudUserDataStore cloudUserDataStore;
 
@@ -40,13 +49,62 @@ public class CloudUserDataStoreTest {
 
     @Before
     public void setUp() {
-        cloudUserDataStore = new CloudUserDataStore(mockRestApi, mockUserCache);
+        cloudUserDataStore = new CloudUserDataStore(mockRestApi, mockUserCache, new SingleFlight<>());
     }
 
     @Test
-    public void testGetUserEntityListFromApi() {
-        cloudUserDataStore.userEntityList();
-        verify(mockRestApi).userEntityList();
+    public void testUserEntityListIsRequestedConditionallyOnCachedValidators() {
+        final ResponseValidators validators = new ResponseValidators(ETAG, null);
+        given(mockUserCache.getListValidators()).willReturn(validators);
+        given(mockRestApi.userEntityList(validators)).willReturn(Observable.just(
+                new ValidatedResponse<List<UserEntity>>(validators, Collections.<UserEntity>emptyList())));
+
+        cloudUserDataStore.userEntityList().test();
+
+        verify(mockRestApi).userEntityList(validators);
+    }
+
+    @Test
+    public void testUserEntityListIsCachedWithItsValidators() {
+        final List<UserEntity> fakeUserEntities = Collections.singletonList(new UserEntity());
+        final ResponseValidators validators = new ResponseValidators(ETAG, null);
+        given(mockRestApi.userEntityList(null))
+                .willReturn(Observable.just(new ValidatedResponse<>(validators, fakeUserEntities)));
+
+        cloudUserDataStore.userEntityList().test().assertValue(fakeUserEntities);
+
+        verify(mockUserCache).putAll(fakeUserEntities, validators);
+    }
+
+    @Test
+    public void testNotModifiedUserEntityListIsReadFromCacheAndRefreshed() {
+        final List<UserEntity> cachedUserEntities = Collections.singletonList(new UserEntity());
+        final ResponseValidators validators = new ResponseValidators(ETAG, null);
+        given(mockUserCache.getListValidators()).willReturn(validators);
+        given(mockRestApi.userEntityList(validators))
+                .willReturn(Observable.just(ValidatedResponse.<List<UserEntity>>notModified(validators)));
+        given(mockUserCache.getAll()).willReturn(Observable.just(cachedUserEntities));
+
+        cloudUserDataStore.userEntityList().test().assertValue(cachedUserEntities);
+
+        verify(mockUserCache).refreshList();
+        verify(mockUserCache, never()).putAll(anyListOf(UserEntity.class), any(ResponseValidators.class));
+    }
+
+    @Test
+    public void testNotModifiedUserEntityListThatCannotBeReadIsRequestedAgain() {
+        final List<UserEntity> fakeUserEntities = Collections.singletonList(new UserEntity());
+        final ResponseValidators validators = new ResponseValidators(ETAG, null);
+        given(mockUserCache.getListValidators()).willReturn(validators);
+        given(mockRestApi.userEntityList(validators))
+                .willReturn(Observable.just(ValidatedResponse.<List<UserEntity>>notModified(validators)));
+        given(mockUserCache.getAll()).willReturn(Observable.<List<UserEntity>>error(new UserNotFoundException()));
+        given(mockRestApi.userEntityList(null))
+                .willReturn(Observable.just(new ValidatedResponse<>(validators, fakeUserEntities)));
+
+        cloudUserDataStore.userEntityList().test().assertValue(fakeUserEntities);
+
+        verify(mockUserCache, never()).refreshList();
     }
 
     @Test
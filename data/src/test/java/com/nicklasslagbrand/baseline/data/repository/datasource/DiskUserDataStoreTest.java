@@ -16,14 +16,19 @@
 package com.nicklasslagbrand.baseline.data.repository.datasource;
 
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
+import com.nicklasslagbrand.baseline.data.entity.UserEntity;
+import com.nicklasslagbrand.baseline.data.exception.UserNotFoundException;
+import io.reactivex.Observable;
+import java.util.Collections;
+import java.util.List;
 import org.junit.Before;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -34,23 +39,52 @@ public class DiskUserDataStoreTest {
     private DiskUserDataStore diskUserDataStore;
 
     @Mock private UserCache mockUserCache;
+    @Mock private UserDataStore mockCloudUserDataStore;
 
-    @Rule public ExpectedException expectedException = ExpectedException.none();
+    private UserEntity fakeUserEntity;
 
     @Before
     public void setUp() {
-        diskUserDataStore = new DiskUserDataStore(mockUserCache);
+        diskUserDataStore = new DiskUserDataStore(mockUserCache, mockCloudUserDataStore);
+        fakeUserEntity = new UserEntity();
+        fakeUserEntity.setUserId(FAKE_USER_ID);
     }
 
     @Test
-    public void testGetUserEntityListUnsupported() {
-        expectedException.expect(UnsupportedOperationException.class);
-        diskUserDataStore.userEntityList();
+    public void testGetUserEntityListFromCache() {
+        final List<UserEntity> userEntities = Collections.singletonList(fakeUserEntity);
+        given(mockUserCache.getAll()).willReturn(Observable.just(userEntities));
+
+        diskUserDataStore.userEntityList().test().assertValue(userEntities);
+
+        verify(mockUserCache).getAll();
+        verify(mockCloudUserDataStore, never()).userEntityList();
     }
 
     @Test
     public void testGetUserEntityDetailesFromCache() {
-        diskUserDataStore.userEntityDetails(FAKE_USER_ID);
+        given(mockUserCache.get(FAKE_USER_ID)).willReturn(Observable.just(fakeUserEntity));
+
+        diskUserDataStore.userEntityDetails(FAKE_USER_ID).test().assertResult(fakeUserEntity);
+
         verify(mockUserCache).get(FAKE_USER_ID);
+        verify(mockCloudUserDataStore, never()).userEntityDetails(FAKE_USER_ID);
+    }
+
+    @Test
+    public void testUnreadableUserEntityListIsRetrievedFromCloud() {
+        final List<UserEntity> userEntities = Collections.singletonList(fakeUserEntity);
+        given(mockUserCache.getAll()).willReturn(Observable.<List<UserEntity>>error(new UserNotFoundException()));
+        given(mockCloudUserDataStore.userEntityList()).willReturn(Observable.just(userEntities));
+
+        diskUserDataStore.userEntityList().test().assertValue(userEntities);
+    }
+
+    @Test
+    public void testUnreadableUserEntityDetailsAreRetrievedFromCloud() {
+        given(mockUserCache.get(FAKE_USER_ID)).willReturn(Observable.<UserEntity>error(new UserNotFoundException()));
+        given(mockCloudUserDataStore.userEntityDetails(FAKE_USER_ID)).willReturn(Observable.just(fakeUserEntity));
+
+        diskUserDataStore.userEntityDetails(FAKE_USER_ID).test().assertResult(fakeUserEntity);
     }
 }
@@ -0,0 +1,104 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.data.repository.datasource;
+
+import io.reactivex.Observable;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.PublishSubject;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class SingleFlightTest {
+
+    private static final int FAKE_USER_ID = 123;
+
+    private SingleFlight<Integer, String> singleFlight;
+    private PublishSubject<String> response;
+    private AtomicInteger requestCount;
+
+    @Before
+    public void setUp() {
+        singleFlight = new SingleFlight<>();
+        response = PublishSubject.create();
+        requestCount = new AtomicInteger();
+    }
+
+    @Test
+    public void testConcurrentSubscribersShareOneRequest() {
+        final TestObserver<String> first = singleFlight.join(FAKE_USER_ID, request()).test();
+        final TestObserver<String> second = singleFlight.join(FAKE_USER_ID, request()).test();
+
+        response.onNext("user");
+        response.onComplete();
+
+        assertThat(requestCount.get(), is(1));
+        first.assertResult("user");
+        second.assertResult("user");
+    }
+
+    @Test
+    public void testLateSubscriberGetsTheResultOfTheRequestInFlight() {
+        final TestObserver<String> first = singleFlight.join(FAKE_USER_ID, request()).test();
+        response.onNext("user");
+        final TestObserver<String> second = singleFlight.join(FAKE_USER_ID, request()).test();
+        response.onComplete();
+
+        assertThat(requestCount.get(), is(1));
+        first.assertResult("user");
+        second.assertResult("user");
+    }
+
+    @Test
+    public void testDifferentKeysDoNotShareRequests() {
+        singleFlight.join(FAKE_USER_ID, request()).test();
+        singleFlight.join(FAKE_USER_ID + 1, request()).test();
+
+        assertThat(requestCount.get(), is(2));
+    }
+
+    @Test
+    public void testKeyIsReleasedWhenRequestTerminates() {
+        singleFlight.join(FAKE_USER_ID, request()).test();
+        assertThat(singleFlight.isInFlight(FAKE_USER_ID), is(true));
+
+        response.onError(new RuntimeException());
+
+        assertThat(singleFlight.isInFlight(FAKE_USER_ID), is(false));
+        singleFlight.join(FAKE_USER_ID, request()).test();
+        assertThat(requestCount.get(), is(2));
+    }
+
+    @Test
+    public void testKeyIsReleasedWhenEverySubscriberIsDisposed() {
+        final TestObserver<String> first = singleFlight.join(FAKE_USER_ID, request()).test();
+        final TestObserver<String> second = singleFlight.join(FAKE_USER_ID, request()).test();
+
+        first.dispose();
+        assertThat(singleFlight.isInFlight(FAKE_USER_ID), is(true));
+        second.dispose();
+
+        assertThat(singleFlight.isInFlight(FAKE_USER_ID), is(false));
+        assertThat(response.hasObservers(), is(false));
+    }
+
+    private Observable<String> request() {
+        return response.doOnSubscribe(disposable -> requestCount.incrementAndGet());
+    }
+}
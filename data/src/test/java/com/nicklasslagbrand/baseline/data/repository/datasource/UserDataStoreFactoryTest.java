@@ -17,6 +17,7 @@ package com.nicklasslagbrand.baseline.data.repository.datasource;
 
 import com.nicklasslagbrand.baseline.data.ApplicationTestCase;
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
+import com.nicklasslagbrand.baseline.data.net.ApiClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -36,16 +37,17 @@ public class UserDataStoreFactoryTest extends ApplicationTestCase {
     private UserDataStoreFactory userDataStoreFactory;
 
     @Mock private UserCache mockUserCache;
+    @Mock private ApiClient mockApiClient;
 
     @Before
     public void setUp() {
-        userDataStoreFactory = new UserDataStoreFactory(RuntimeEnvironment.application, mockUserCache);
+        userDataStoreFactory = new UserDataStoreFactory(RuntimeEnvironment.application, mockUserCache, mockApiClient);
     }
 
     @Test
     public void testCreateDiskDataStore() {
         given(mockUserCache.isCached(FAKE_USER_ID)).willReturn(true);
-        given(mockUserCache.isExpired()).willReturn(false);
+        given(mockUserCache.isExpired(FAKE_USER_ID)).willReturn(false);
 
         UserDataStore userDataStore = userDataStoreFactory.create(FAKE_USER_ID);
 
@@ -53,12 +55,12 @@ public class UserDataStoreFactoryTest extends ApplicationTestCase {
         assertThat(userDataStore, is(instanceOf(DiskUserDataStore.class)));
 
         verify(mockUserCache).isCached(FAKE_USER_ID);
-        verify(mockUserCache).isExpired();
+        verify(mockUserCache).isExpired(FAKE_USER_ID);
     }
 
     @Test
     public void testCreateCloudDataStore() {
-        given(mockUserCache.isExpired()).willReturn(true);
+        given(mockUserCache.isExpired(FAKE_USER_ID)).willReturn(true);
         given(mockUserCache.isCached(FAKE_USER_ID)).willReturn(false);
 
         UserDataStore userDataStore = userDataStoreFactory.create(FAKE_USER_ID);
@@ -66,6 +68,46 @@ public class UserDataStoreFactoryTest extends ApplicationTestCase {
         assertThat(userDataStore, is(notNullValue()));
         assertThat(userDataStore, is(instanceOf(CloudUserDataStore.class)));
 
-        verify(mockUserCache).isExpired();
+        verify(mockUserCache).isCached(FAKE_USER_ID);
+    }
+
+    @Test
+    public void testCreateCacheThenCloudDataStore() {
+        given(mockUserCache.isCached(FAKE_USER_ID)).willReturn(true);
+        given(mockUserCache.isExpired(FAKE_USER_ID)).willReturn(true);
+
+        UserDataStore userDataStore = userDataStoreFactory.create(FAKE_USER_ID);
+
+        assertThat(userDataStore, is(notNullValue()));
+        assertThat(userDataStore, is(instanceOf(CacheThenCloudUserDataStore.class)));
+    }
+
+    @Test
+    public void testCreateListDataStoreWithoutCachedList() {
+        given(mockUserCache.isListCached()).willReturn(false);
+
+        UserDataStore userDataStore = userDataStoreFactory.createListDataStore();
+
+        assertThat(userDataStore, is(instanceOf(CloudUserDataStore.class)));
+    }
+
+    @Test
+    public void testCreateListDataStoreWithFreshCachedList() {
+        given(mockUserCache.isListCached()).willReturn(true);
+        given(mockUserCache.isListExpired()).willReturn(false);
+
+        UserDataStore userDataStore = userDataStoreFactory.createListDataStore();
+
+        assertThat(userDataStore, is(instanceOf(DiskUserDataStore.class)));
+    }
+
+    @Test
+    public void testCreateListDataStoreWithExpiredCachedList() {
+        given(mockUserCache.isListCached()).willReturn(true);
+        given(mockUserCache.isListExpired()).willReturn(true);
+
+        UserDataStore userDataStore = userDataStoreFactory.createListDataStore();
+
+        assertThat(userDataStore, is(instanceOf(CacheThenCloudUserDataStore.class)));
     }
 }
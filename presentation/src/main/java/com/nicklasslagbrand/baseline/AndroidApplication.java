@@ -16,6 +16,7 @@
 package com.nicklasslagbrand.baseline;
 
 import android.app.Application;
+import com.nicklasslagbrand.baseline.data.cache.UserCache;
 import com.squareup.leakcanary.LeakCanary;
 import com.nicklasslagbrand.baseline.di.components.ApplicationComponent;
 import com.nicklasslagbrand.baseline.di.components.DaggerApplicationComponent;
@@ -39,6 +40,14 @@ public class AndroidApplication extends Application {
         this.initializeLeakDetection();
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            this.flushCaches();
+        }
+    }
+
     private void initializeTimber() {
         Timber.plant(new Timber.DebugTree());
     }
@@ -53,6 +62,20 @@ public class AndroidApplication extends Application {
         return this.applicationComponent;
     }
 
+    /**
+     * Writes the pending cache changes to disk once the application is in the background, the last
+     * time it is reliably told about before its process may be killed.
+     */
+    private void flushCaches() {
+        final UserCache userCache = this.applicationComponent.userCache();
+        this.applicationComponent.threadExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                userCache.flush();
+            }
+        });
+    }
+
     private void initializeLeakDetection() {
         if (BuildConfig.DEBUG) {
             LeakCanary.install(this);
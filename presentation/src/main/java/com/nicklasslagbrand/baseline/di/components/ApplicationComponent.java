@@ -16,11 +16,15 @@
 package com.nicklasslagbrand.baseline.di.components;
 
 import android.content.Context;
+import com.nicklasslagbrand.baseline.data.cache.UserCache;
 import com.nicklasslagbrand.baseline.di.modules.ApplicationModule;
 import com.nicklasslagbrand.baseline.domain.executor.PostExecutionThread;
 import com.nicklasslagbrand.baseline.domain.executor.ThreadExecutor;
 import com.nicklasslagbrand.baseline.domain.repository.UserRepository;
 import com.nicklasslagbrand.baseline.view.activity.BaseActivity;
+import com.nicklasslagbrand.baseline.view.component.BitmapMemoryCache;
+import com.nicklasslagbrand.baseline.view.component.ImageDiskCache;
+import com.nicklasslagbrand.baseline.view.component.ImageLoader;
 import dagger.Component;
 import javax.inject.Singleton;
 
@@ -40,4 +44,12 @@ public interface ApplicationComponent {
     PostExecutionThread postExecutionThread();
 
     UserRepository userRepository();
+
+    UserCache userCache();
+
+    ImageLoader imageLoader();
+
+    BitmapMemoryCache bitmapMemoryCache();
+
+    ImageDiskCache imageDiskCache();
 }
@@ -18,13 +18,21 @@ package com.nicklasslagbrand.baseline.di.modules;
 import android.content.Context;
 import com.nicklasslagbrand.baseline.AndroidApplication;
 import com.nicklasslagbrand.baseline.UIThread;
+import com.nicklasslagbrand.baseline.data.cache.CachePolicy;
+import com.nicklasslagbrand.baseline.data.cache.DiskCacheManager;
 import com.nicklasslagbrand.baseline.data.cache.UserCache;
 import com.nicklasslagbrand.baseline.data.cache.UserCacheImpl;
+import com.nicklasslagbrand.baseline.data.cache.serializer.BinaryUserEntitySerializer;
+import com.nicklasslagbrand.baseline.data.cache.serializer.UserEntitySerializer;
 import com.nicklasslagbrand.baseline.data.executor.JobExecutor;
+import com.nicklasslagbrand.baseline.data.net.ApiClient;
 import com.nicklasslagbrand.baseline.data.repository.UserDataRepository;
 import com.nicklasslagbrand.baseline.domain.executor.PostExecutionThread;
 import com.nicklasslagbrand.baseline.domain.executor.ThreadExecutor;
 import com.nicklasslagbrand.baseline.domain.repository.UserRepository;
+import com.nicklasslagbrand.baseline.view.component.BitmapMemoryCache;
+import com.nicklasslagbrand.baseline.view.component.ImageDiskCache;
+import com.nicklasslagbrand.baseline.view.component.ImageLoader;
 import dagger.Module;
 import dagger.Provides;
 import javax.inject.Singleton;
@@ -58,12 +66,55 @@ public class ApplicationModule {
         return uiThread;
     }
 
+    @Provides
+    @Singleton
+    UserEntitySerializer provideUserEntitySerializer(BinaryUserEntitySerializer serializer) {
+        return serializer;
+    }
+
+    @Provides
+    @Singleton
+    CachePolicy provideCachePolicy() {
+        return new CachePolicy(CachePolicy.DEFAULT_USER_TTL_MS, CachePolicy.DEFAULT_USER_LIST_TTL_MS,
+                CachePolicy.DEFAULT_MAX_STALE_MS);
+    }
+
+    @Provides
+    @Singleton
+    DiskCacheManager provideDiskCacheManager(Context context, ThreadExecutor threadExecutor) {
+        return new DiskCacheManager(context.getCacheDir(), threadExecutor);
+    }
+
     @Provides
     @Singleton
     UserCache provideUserCache(UserCacheImpl userCache) {
         return userCache;
     }
 
+    @Provides
+    @Singleton
+    ApiClient provideApiClient() {
+        return new ApiClient(ApiClient.DEFAULT_MAX_IDLE_CONNECTIONS, ApiClient.DEFAULT_KEEP_ALIVE_DURATION_MS);
+    }
+
+    @Provides
+    @Singleton
+    ImageLoader provideImageLoader() {
+        return new ImageLoader(ImageLoader.DEFAULT_THREAD_COUNT);
+    }
+
+    @Provides
+    @Singleton
+    BitmapMemoryCache provideBitmapMemoryCache() {
+        return new BitmapMemoryCache(BitmapMemoryCache.defaultMaxSizeBytes());
+    }
+
+    @Provides
+    @Singleton
+    ImageDiskCache provideImageDiskCache(DiskCacheManager diskCacheManager, BitmapMemoryCache bitmapMemoryCache) {
+        return new ImageDiskCache(diskCacheManager.namespace(ImageDiskCache.NAMESPACE), bitmapMemoryCache);
+    }
+
     @Provides
     @Singleton
     UserRepository provideUserRepository(UserDataRepository userDataRepository) {
@@ -5,26 +5,32 @@
  */
 package com.nicklasslagbrand.baseline.view.component;
 
-import android.app.Activity;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.widget.ImageView;
-import java.io.File;
-import java.io.FileOutputStream;
+import com.nicklasslagbrand.baseline.AndroidApplication;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
-import timber.log.Timber;
 
 /**
  * Simple implementation of {@link android.widget.ImageView} with extended features like setting an
- * image from an url and an internal file cache using the application cache directory.
+ * image from an url and an internal file cache, the {@link ImageDiskCache} shared by every view of
+ * the application.
+ *
+ * Images are loaded by the application {@link ImageLoader}. The load in flight is cancelled when
+ * the view is given another url or detached from the window, so a recycled view never shows a
+ * stale image, and restarted when it is attached again.
+ *
+ * Images are decoded no larger than the view and kept in the application {@link BitmapMemoryCache},
+ * so showing an image again does not decode it again. Images are cached on disk as downloaded, and
+ * in memory once per size they are decoded at, under the keys built by {@link ImageKey}.
  */
 public class AutoLoadImageView extends ImageView {
 
@@ -32,7 +38,11 @@ public class AutoLoadImageView extends ImageView {
 
     private String imageUrl = null;
     int imagePlaceHolderResId = -1;
-    private DiskCache cache = new DiskCache(getContext().getCacheDir());
+    private ImageLoader.Request imageRequest;
+    private boolean imageRequestInterrupted;
+    private Bitmap displayedBitmap;
+    private final BitmapMemoryCache memoryCache = getBitmapMemoryCache();
+    private final ImageDiskCache cache = getImageDiskCache();
 
     public AutoLoadImageView(Context context) {
         super(context);
@@ -68,12 +78,32 @@ public class AutoLoadImageView extends ImageView {
         this.setImageUrl(this.imageUrl);
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (this.imageRequestInterrupted) {
+            this.imageRequestInterrupted = false;
+            loadImageFromUrl(this.imageUrl);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (this.imageRequest != null) {
+            this.imageRequestInterrupted = true;
+            cancelImageRequest();
+        }
+        super.onDetachedFromWindow();
+    }
+
     /**
      * Set an image from a remote url.
      *
      * @param imageUrl The url of the resource to load.
      */
     public void setImageUrl(final String imageUrl) {
+        cancelImageRequest();
+        this.imageRequestInterrupted = false;
         this.imageUrl = imageUrl;
         loadImagePlaceHolder();
         if (this.imageUrl != null) {
@@ -89,60 +119,109 @@ public class AutoLoadImageView extends ImageView {
      * @param imageUrl The remote image url to load.
      */
     private void loadImageFromUrl(final String imageUrl) {
-        new Thread() {
+        final int targetWidth = getTargetWidth();
+        final int targetHeight = getTargetHeight();
+        final String key = ImageKey.sized(imageUrl, targetWidth, targetHeight);
+        final Bitmap memoryBitmap = this.memoryCache.get(key);
+        if (memoryBitmap != null) {
+            showBitmap(memoryBitmap);
+            return;
+        }
+
+        final int priority = isShown() ? ImageLoader.PRIORITY_HIGH : ImageLoader.PRIORITY_LOW;
+        this.imageRequest = getImageLoader().load(key, new ImageLoader.Source() {
             @Override
-            public void run() {
-                final Bitmap bitmap = getFromCache(getFileNameFromUrl(imageUrl));
-                if (bitmap != null) {
-                    loadBitmap(bitmap);
-                } else {
-                    if (isThereInternetConnection()) {
-                        final ImageDownloader imageDownloader = new ImageDownloader();
-                        imageDownloader.download(imageUrl, new ImageDownloader.Callback() {
-                            @Override
-                            public void onImageDownloaded(Bitmap bitmap) {
-                                cacheBitmap(bitmap, getFileNameFromUrl(imageUrl));
-                                loadBitmap(bitmap);
-                            }
-
-                            @Override
-                            public void onError() {
-                                loadImagePlaceHolder();
-                            }
-                        });
-                    } else {
-                        loadImagePlaceHolder();
+            public Bitmap load() {
+                final String fileName = getFileNameFromUrl(imageUrl);
+                Bitmap bitmap = getFromCache(fileName, targetWidth, targetHeight);
+                if (bitmap == null && isThereInternetConnection()) {
+                    final InputStream imageStream = new ImageDownloader().download(imageUrl);
+                    if (imageStream != null && cacheImage(imageStream, fileName)) {
+                        bitmap = getFromCache(fileName, targetWidth, targetHeight);
                     }
                 }
+                if (bitmap != null) {
+                    memoryCache.put(key, bitmap);
+                }
+                return bitmap;
+            }
+        }, new ImageLoader.Target() {
+            @Override
+            public void onImageLoaded(Bitmap bitmap) {
+                imageRequest = null;
+                showBitmap(bitmap);
+            }
+
+            @Override
+            public void onImageFailed() {
+                imageRequest = null;
+                loadImagePlaceHolder();
             }
-        }.start();
+        }, priority);
     }
 
     /**
-     * Run the operation of loading a bitmap on the UI thread.
-     *
-     * @param bitmap The image to load.
+     * Shows a bitmap, letting the {@link BitmapMemoryCache} know which one is drawn.
      */
-    void loadBitmap(final Bitmap bitmap) {
-        ((Activity) getContext()).runOnUiThread(new Runnable() {
-            @Override
-            public void run() {
-                setImageBitmap(bitmap);
-            }
-        });
+    private void showBitmap(Bitmap bitmap) {
+        this.memoryCache.acquire(bitmap);
+        setImageBitmap(bitmap);
+        releaseDisplayedBitmap();
+        this.displayedBitmap = bitmap;
+    }
+
+    private void releaseDisplayedBitmap() {
+        if (this.displayedBitmap != null) {
+            this.memoryCache.release(this.displayedBitmap);
+            this.displayedBitmap = null;
+        }
+    }
+
+    /**
+     * The width, in pixels, images are decoded for: the view width or, before the view is laid
+     * out, its layout width or the screen width.
+     */
+    private int getTargetWidth() {
+        if (getWidth() > 0) {
+            return getWidth();
+        }
+        if (getLayoutParams() != null && getLayoutParams().width > 0) {
+            return getLayoutParams().width;
+        }
+        return getResources().getDisplayMetrics().widthPixels;
+    }
+
+    /**
+     * The height, in pixels, images are decoded for: the view height or, before the view is laid
+     * out, its layout height or the screen height.
+     */
+    private int getTargetHeight() {
+        if (getHeight() > 0) {
+            return getHeight();
+        }
+        if (getLayoutParams() != null && getLayoutParams().height > 0) {
+            return getLayoutParams().height;
+        }
+        return getResources().getDisplayMetrics().heightPixels;
+    }
+
+    /**
+     * Cancels the load in flight, if any.
+     */
+    private void cancelImageRequest() {
+        if (this.imageRequest != null) {
+            this.imageRequest.cancel();
+            this.imageRequest = null;
+        }
     }
 
     /**
-     * Loads the image place holder if any has been assigned.
+     * Loads the image place holder if any has been assigned. Called on the main thread only.
      */
     void loadImagePlaceHolder() {
         if (this.imagePlaceHolderResId != -1) {
-            ((Activity) getContext()).runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    setImageResource(imagePlaceHolderResId);
-                }
-            });
+            setImageResource(this.imagePlaceHolderResId);
+            releaseDisplayedBitmap();
         }
     }
 
@@ -150,26 +229,47 @@ public class AutoLoadImageView extends ImageView {
      * Get a {@link android.graphics.Bitmap} from the internal cache or null if it does not exist.
      *
      * @param fileName The name of the file to look for in the cache.
+     * @param targetWidth The width, in pixels, the bitmap is shown at.
+     * @param targetHeight The height, in pixels, the bitmap is shown at.
      * @return A valid cached bitmap, otherwise null.
      */
-    Bitmap getFromCache(String fileName) {
-        Bitmap bitmap = null;
-        if (this.cache != null) {
-            bitmap = this.cache.get(fileName);
-        }
-        return bitmap;
+    Bitmap getFromCache(String fileName, int targetWidth, int targetHeight) {
+        return this.cache.get(fileName, targetWidth, targetHeight);
     }
 
     /**
-     * Cache an image using the internal cache.
+     * Cache an image, as downloaded, using the internal cache.
      *
-     * @param bitmap The bitmap to cache.
-     * @param fileName The file name used for caching the bitmap.
+     * @param imageStream The encoded image to cache. It is closed once read.
+     * @param fileName The file name used for caching the image.
+     * @return true if the image was cached, otherwise false.
      */
-    void cacheBitmap(Bitmap bitmap, String fileName) {
-        if (this.cache != null) {
-            this.cache.put(bitmap, fileName);
-        }
+    boolean cacheImage(InputStream imageStream, String fileName) {
+        return this.cache.put(imageStream, fileName);
+    }
+
+    /**
+     * Gets the {@link ImageLoader} shared by every view of the application.
+     */
+    private ImageLoader getImageLoader() {
+        return ((AndroidApplication) getContext().getApplicationContext()).getApplicationComponent()
+                                                                          .imageLoader();
+    }
+
+    /**
+     * Gets the {@link BitmapMemoryCache} shared by every view of the application.
+     */
+    private BitmapMemoryCache getBitmapMemoryCache() {
+        return ((AndroidApplication) getContext().getApplicationContext()).getApplicationComponent()
+                                                                          .bitmapMemoryCache();
+    }
+
+    /**
+     * Gets the {@link ImageDiskCache} shared by every view of the application.
+     */
+    private ImageDiskCache getImageDiskCache() {
+        return ((AndroidApplication) getContext().getApplicationContext()).getApplicationComponent()
+                                                                          .imageDiskCache();
     }
 
     /**
@@ -195,114 +295,30 @@ public class AutoLoadImageView extends ImageView {
      * @return An String representing a unique file name.
      */
     String getFileNameFromUrl(String imageUrl) {
-        //we could generate an unique MD5/SHA-1 here
-        String hash = String.valueOf(imageUrl.hashCode());
-        if (hash.startsWith("-")) {
-            hash = hash.substring(1);
-        }
-        return BASE_IMAGE_NAME_CACHED + hash;
+        return BASE_IMAGE_NAME_CACHED + ImageKey.original(imageUrl);
     }
 
     /**
      * Class used to download images from the internet
      */
     private static class ImageDownloader {
-        interface Callback {
-            void onImageDownloaded(Bitmap bitmap);
-
-            void onError();
-        }
 
         ImageDownloader() {}
 
         /**
-         * Download an image from an url.
+         * Download an image from an url, without decoding it.
          *
          * @param imageUrl The url of the image to download.
-         * @param callback A callback used to be reported when the task is finished.
+         * @return A stream of the encoded image, or null if it could not be downloaded.
          */
-        void download(String imageUrl, Callback callback) {
+        InputStream download(String imageUrl) {
             try {
                 final URLConnection conn = new URL(imageUrl).openConnection();
                 conn.connect();
-                final Bitmap bitmap = BitmapFactory.decodeStream(conn.getInputStream());
-                if (callback != null) {
-                    callback.onImageDownloaded(bitmap);
-                }
+                return conn.getInputStream();
             } catch (IOException e) {
-                reportError(callback);
-            }
-        }
-
-        /**
-         * Report an error to the caller
-         *
-         * @param callback Caller implementing {@link Callback}
-         */
-        private void reportError(Callback callback) {
-            if (callback != null) {
-                callback.onError();
-            }
-        }
-    }
-
-    /**
-     * A simple disk cache implementation
-     */
-    private static class DiskCache {
-
-        private static final String TAG = "DiskCache";
-
-        private final File cacheDir;
-
-        DiskCache(File cacheDir) {
-            this.cacheDir = cacheDir;
-        }
-
-        /**
-         * Get an element from the cache.
-         *
-         * @param fileName The name of the file to look for.
-         * @return A valid element, otherwise false.
-         */
-        synchronized Bitmap get(String fileName) {
-            Bitmap bitmap = null;
-            File file = buildFileFromFilename(fileName);
-            if (file.exists()) {
-                bitmap = BitmapFactory.decodeFile(file.getPath());
+                return null;
             }
-            return bitmap;
-        }
-
-        /**
-         * Cache an element.
-         *
-         * @param bitmap The bitmap to be put in the cache.
-         * @param fileName A string representing the name of the file to be cached.
-         */
-        synchronized void put(Bitmap bitmap, String fileName) {
-            final File file = buildFileFromFilename(fileName);
-            if (!file.exists()) {
-                try {
-                    final FileOutputStream fileOutputStream = new FileOutputStream(file);
-                    bitmap.compress(Bitmap.CompressFormat.PNG, 90, fileOutputStream);
-                    fileOutputStream.flush();
-                    fileOutputStream.close();
-                } catch (IOException e) {
-                    Timber.e(e, e.getMessage());
-                }
-            }
-        }
-
-        /**
-         * Creates a file name from an image url
-         *
-         * @param fileName The image url used to build the file name.
-         * @return A {@link java.io.File} representing a unique element.
-         */
-        private File buildFileFromFilename(String fileName) {
-            String fullPath = this.cacheDir.getPath() + File.separator + fileName;
-            return new File(fullPath);
         }
     }
 
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import java.io.File;
+
+/**
+ * Decodes image files no larger than needed, into reused bitmaps when possible.
+ */
+final class BitmapDecoder {
+
+    private BitmapDecoder() {}
+
+    /**
+     * Decodes an image file, sampled down to the smallest size still covering the target size.
+     *
+     * @param file The image file to decode.
+     * @param targetWidth The width, in pixels, the image is shown at.
+     * @param targetHeight The height, in pixels, the image is shown at.
+     * @param memoryCache {@link BitmapMemoryCache} providing bitmaps to decode into.
+     * @return The decoded bitmap, or null if the file could not be decoded.
+     */
+    static Bitmap decodeFile(File file, int targetWidth, int targetHeight, BitmapMemoryCache memoryCache) {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, targetWidth, targetHeight);
+        options.inMutable = true;
+        options.inBitmap = memoryCache.getReusable(options.outWidth, options.outHeight, options.inSampleSize);
+        try {
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        } catch (IllegalArgumentException e) {
+            // the reused bitmap did not fit after all
+            options.inBitmap = null;
+            return BitmapFactory.decodeFile(file.getPath(), options);
+        }
+    }
+
+    /**
+     * Calculates the largest power of two sample size that keeps both dimensions of the image at
+     * least as large as the target ones.
+     */
+    static int calculateInSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int inSampleSize = 1;
+        if (targetWidth <= 0 || targetHeight <= 0) {
+            return inSampleSize;
+        }
+        while ((width / (inSampleSize * 2)) >= targetWidth && (height / (inSampleSize * 2)) >= targetHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+}
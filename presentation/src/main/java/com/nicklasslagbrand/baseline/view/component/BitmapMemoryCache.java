@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import android.util.LruCache;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Memory cache of decoded images, in front of the disk cache, bounded by the size of the bitmaps.
+ *
+ * Views report the bitmaps they draw, so once a bitmap is out of the cache and the last view
+ * drawing it lets it go, it goes to a {@link BitmapPool} to decode new images into.
+ */
+public class BitmapMemoryCache {
+
+    private static final int POOL_SIZE_DIVIDER = 4;
+
+    private final LruCache<String, Bitmap> bitmaps;
+    private final Set<Bitmap> cachedBitmaps = Collections.newSetFromMap(new IdentityHashMap<Bitmap, Boolean>());
+    private final Map<Bitmap, Integer> displayCounts = new WeakHashMap<>();
+    private final BitmapPool bitmapPool;
+
+    /**
+     * Constructor of the class {@link BitmapMemoryCache}.
+     *
+     * @param maxSizeBytes The maximum size, in bytes, of the cached bitmaps.
+     */
+    public BitmapMemoryCache(int maxSizeBytes) {
+        this.bitmaps = new LruCache<String, Bitmap>(maxSizeBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldBitmap, Bitmap newBitmap) {
+                onBitmapRemoved(oldBitmap);
+            }
+        };
+        this.bitmapPool = new BitmapPool(maxSizeBytes / POOL_SIZE_DIVIDER);
+    }
+
+    /**
+     * A memory budget fit for the running device: an eighth of the memory the application can use.
+     */
+    public static int defaultMaxSizeBytes() {
+        return (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets a cached bitmap, or null if there is none for the key.
+     */
+    public Bitmap get(String key) {
+        return bitmaps.get(key);
+    }
+
+    /**
+     * Caches a bitmap.
+     */
+    public void put(String key, Bitmap bitmap) {
+        synchronized (this) {
+            cachedBitmaps.add(bitmap);
+        }
+        bitmaps.put(key, bitmap);
+    }
+
+    /**
+     * Records that a view has started drawing a bitmap.
+     */
+    public synchronized void acquire(Bitmap bitmap) {
+        final Integer count = displayCounts.get(bitmap);
+        displayCounts.put(bitmap, (count != null) ? count + 1 : 1);
+    }
+
+    /**
+     * Records that a view no longer draws a bitmap, pooling it if it was the last one and the bitmap
+     * is no longer cached.
+     */
+    public synchronized void release(Bitmap bitmap) {
+        final Integer count = displayCounts.get(bitmap);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            displayCounts.put(bitmap, count - 1);
+        } else {
+            displayCounts.remove(bitmap);
+            if (!cachedBitmaps.contains(bitmap)) {
+                bitmapPool.put(bitmap);
+            }
+        }
+    }
+
+    /**
+     * Takes a bitmap nobody uses to decode an image into, or null if there is none suitable.
+     *
+     * @see BitmapPool#get(int, int, int)
+     */
+    Bitmap getReusable(int width, int height, int sampleSize) {
+        return bitmapPool.get(width, height, sampleSize);
+    }
+
+    private synchronized void onBitmapRemoved(Bitmap bitmap) {
+        // not pooled even if no view draws it: it may be on its way to one
+        cachedBitmaps.remove(bitmap);
+    }
+}
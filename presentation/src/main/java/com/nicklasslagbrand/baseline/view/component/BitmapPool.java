@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import android.os.Build;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of bitmaps no longer in use, whose memory is reused to decode new images through
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}.
+ *
+ * Only bitmaps nobody draws can be pooled, since decoding into a bitmap overwrites its pixels. The
+ * pool is bounded: once full, the oldest bitmaps are dropped.
+ */
+class BitmapPool {
+
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private final int maxSizeBytes;
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+    private int size;
+
+    /**
+     * Constructor of the class {@link BitmapPool}.
+     *
+     * @param maxSizeBytes The maximum size, in bytes, of the pooled bitmaps.
+     */
+    BitmapPool(int maxSizeBytes) {
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Adds a bitmap nobody uses anymore to the pool, if it can be reused.
+     */
+    synchronized void put(Bitmap bitmap) {
+        if (!bitmap.isMutable() || bitmap.isRecycled() || bitmap.getConfig() != Bitmap.Config.ARGB_8888
+                || bitmap.getByteCount() > maxSizeBytes) {
+            return;
+        }
+        bitmaps.addLast(bitmap);
+        size += bitmap.getByteCount();
+        while (size > maxSizeBytes) {
+            size -= bitmaps.removeFirst().getByteCount();
+        }
+    }
+
+    /**
+     * Takes a bitmap from the pool that an image can be decoded into.
+     *
+     * @param width The width of the encoded image.
+     * @param height The height of the encoded image.
+     * @param sampleSize The sample size the image is decoded with.
+     * @return A bitmap to reuse, or null if there is none suitable.
+     */
+    synchronized Bitmap get(int width, int height, int sampleSize) {
+        final Iterator<Bitmap> iterator = bitmaps.iterator();
+        while (iterator.hasNext()) {
+            final Bitmap bitmap = iterator.next();
+            if (canDecodeInto(bitmap, width, height, sampleSize)) {
+                iterator.remove();
+                size -= bitmap.getByteCount();
+                return bitmap;
+            }
+        }
+        return null;
+    }
+
+    private static boolean canDecodeInto(Bitmap bitmap, int width, int height, int sampleSize) {
+        return canDecodeInto(Build.VERSION.SDK_INT, bitmap.getWidth(), bitmap.getHeight(), bitmap.getByteCount(),
+                width, height, sampleSize);
+    }
+
+    /**
+     * Checks if an image can be decoded into a bitmap, on a given platform version.
+     *
+     * @param sdkInt The platform version, as in {@link Build.VERSION#SDK_INT}.
+     * @param bitmapWidth The width of the bitmap.
+     * @param bitmapHeight The height of the bitmap.
+     * @param bitmapByteCount The size, in bytes, of the bitmap.
+     * @param width The width of the encoded image.
+     * @param height The height of the encoded image.
+     * @param sampleSize The sample size the image is decoded with.
+     */
+    static boolean canDecodeInto(int sdkInt, int bitmapWidth, int bitmapHeight, int bitmapByteCount, int width,
+            int height, int sampleSize) {
+        if (sdkInt >= Build.VERSION_CODES.KITKAT) {
+            // any bitmap large enough will do
+            final int decodedWidth = (width + sampleSize - 1) / sampleSize;
+            final int decodedHeight = (height + sampleSize - 1) / sampleSize;
+            return bitmapByteCount >= decodedWidth * decodedHeight * BYTES_PER_PIXEL;
+        }
+        // before KitKat only images of the same size, decoded without sampling, can be reused
+        return sampleSize == 1 && bitmapWidth == width && bitmapHeight == height;
+    }
+}
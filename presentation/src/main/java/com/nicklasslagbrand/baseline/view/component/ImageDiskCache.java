@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import com.nicklasslagbrand.baseline.data.cache.DiskCacheNamespace;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import timber.log.Timber;
+
+/**
+ * Disk cache of downloaded images, shared by every {@link AutoLoadImageView} of the application.
+ *
+ * The files live in a {@link DiskCacheNamespace}, whose least recently used ones are deleted once
+ * the cache directory is over budget. Whether an image is cached is answered from the in-memory
+ * index of the namespace, without touching the disk.
+ *
+ * Reads take no lock: elements are only ever replaced by renaming a complete file over them, so a
+ * read sees either the old or the new file. Writes are serialized per element through a set of
+ * striped locks, so elements are written in parallel unless their names share a stripe. An element
+ * that fails to decode is deleted under the lock of its stripe, and only if nothing was written in
+ * the stripe since the read, so a freshly written element is never deleted in its place.
+ */
+public class ImageDiskCache {
+
+    public static final String NAMESPACE = "images";
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int LOCK_STRIPES = 16;
+
+    private final DiskCacheNamespace diskCacheNamespace;
+    private final BitmapMemoryCache memoryCache;
+    private final WriteLock[] writeLocks = new WriteLock[LOCK_STRIPES];
+
+    /**
+     * Constructor of the class {@link ImageDiskCache}.
+     *
+     * @param diskCacheNamespace {@link DiskCacheNamespace} where images are stored.
+     * @param memoryCache {@link BitmapMemoryCache} providing bitmaps to decode images into.
+     */
+    public ImageDiskCache(DiskCacheNamespace diskCacheNamespace, BitmapMemoryCache memoryCache) {
+        this.diskCacheNamespace = diskCacheNamespace;
+        this.memoryCache = memoryCache;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.writeLocks[i] = new WriteLock();
+        }
+    }
+
+    /**
+     * Get an element from the cache.
+     *
+     * @param fileName The name of the file to look for.
+     * @param targetWidth The width, in pixels, the element is decoded for.
+     * @param targetHeight The height, in pixels, the element is decoded for.
+     * @return A valid element, otherwise null.
+     */
+    Bitmap get(String fileName, int targetWidth, int targetHeight) {
+        if (!this.diskCacheNamespace.contains(fileName)) {
+            return null;
+        }
+        final WriteLock writeLock = writeLockFor(fileName);
+        final int writesBeforeRead = writeLock.writes;
+        final Bitmap bitmap =
+                BitmapDecoder.decodeFile(this.diskCacheNamespace.file(fileName), targetWidth, targetHeight, memoryCache);
+        if (bitmap != null) {
+            this.diskCacheNamespace.recordRead(fileName);
+        } else {
+            synchronized (writeLock) {
+                // missing or unreadable, so it is downloaded again, unless it has just been replaced
+                if (writeLock.writes == writesBeforeRead) {
+                    this.diskCacheNamespace.file(fileName).delete();
+                    this.diskCacheNamespace.recordRemoval(fileName);
+                }
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Cache an element, replacing the cached one if any. The encoded bytes are copied as they are
+     * into a temporary file, renamed to the cached one once complete.
+     *
+     * @param imageStream The encoded image to be put in the cache. It is closed once read.
+     * @param fileName A string representing the name of the file to be cached.
+     * @return true if the element was cached, otherwise false.
+     */
+    boolean put(InputStream imageStream, String fileName) {
+        final WriteLock writeLock = writeLockFor(fileName);
+        synchronized (writeLock) {
+            try {
+                return write(imageStream, fileName);
+            } finally {
+                writeLock.writes++;
+            }
+        }
+    }
+
+    private boolean write(InputStream imageStream, String fileName) {
+        final File file = this.diskCacheNamespace.file(fileName);
+        final File temporaryFile = this.diskCacheNamespace.file(fileName + TEMPORARY_FILE_SUFFIX);
+        try {
+            final FileOutputStream fileOutputStream = new FileOutputStream(temporaryFile);
+            try {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int count;
+                while ((count = imageStream.read(buffer)) != -1) {
+                    fileOutputStream.write(buffer, 0, count);
+                }
+            } finally {
+                fileOutputStream.close();
+            }
+            if (!temporaryFile.renameTo(file)) {
+                throw new IOException("Could not rename " + temporaryFile + " to " + file);
+            }
+            this.diskCacheNamespace.recordWrite(fileName);
+            return true;
+        } catch (IOException e) {
+            Timber.e(e, e.getMessage());
+            temporaryFile.delete();
+            return false;
+        } finally {
+            try {
+                imageStream.close();
+            } catch (IOException e) {
+                Timber.e(e, e.getMessage());
+            }
+        }
+    }
+
+    private WriteLock writeLockFor(String fileName) {
+        return this.writeLocks[(fileName.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * The lock of a stripe, counting the writes done under it.
+     */
+    private static class WriteLock {
+        volatile int writes;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Builds the keys images are cached under, from a SHA-1 hash of their url and, for decoded images,
+ * the size they are decoded at. Different urls, or sizes of the same url, never share a key.
+ */
+final class ImageKey {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private ImageKey() {}
+
+    /**
+     * Gets the key of an image as downloaded.
+     *
+     * @param imageUrl The url of the image.
+     */
+    static String original(String imageUrl) {
+        return sha1(imageUrl);
+    }
+
+    /**
+     * Gets the key of an image decoded at a given size.
+     *
+     * @param imageUrl The url of the image.
+     * @param width The width, in pixels, the image is decoded for.
+     * @param height The height, in pixels, the image is decoded for.
+     */
+    static String sized(String imageUrl, int width, int height) {
+        return sha1(imageUrl + '\n' + width + 'x' + height);
+    }
+
+    private static String sha1(String value) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(value.getBytes("UTF-8"));
+            final char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            // both are required on every platform
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads images on a bounded pool of background threads and delivers them on the main thread.
+ *
+ * Requests for the same key are served by a single load. Pending loads run by priority and, within
+ * the same priority, newest first, as the latest requests are the likeliest to be on screen. A
+ * request can be cancelled at any time from the main thread: it is then never delivered, and its
+ * load is dropped if no other request is waiting for it and it has not started yet.
+ */
+public class ImageLoader {
+
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_HIGH = 1;
+
+    public static final int DEFAULT_THREAD_COUNT = 3;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Loads an image. Called on a background thread.
+     */
+    public interface Source {
+        /**
+         * @return The loaded image, or null if it could not be loaded.
+         */
+        Bitmap load();
+    }
+
+    /**
+     * Receives a loaded image. Called on the main thread.
+     */
+    public interface Target {
+        void onImageLoaded(Bitmap bitmap);
+
+        void onImageFailed();
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Executor deliveryExecutor;
+    private final Map<String, Job> jobs = new HashMap<>();
+    private long sequence;
+
+    /**
+     * Constructor of the class {@link ImageLoader}.
+     *
+     * @param threadCount The maximum number of images loaded at the same time.
+     */
+    public ImageLoader(int threadCount) {
+        this(threadCount, new ImageThreadFactory(), new MainThreadExecutor());
+    }
+
+    /**
+     * Constructor of the class {@link ImageLoader}.
+     *
+     * @param threadCount The maximum number of images loaded at the same time.
+     * @param threadFactory {@link ThreadFactory} creating the threads images are loaded on.
+     * @param deliveryExecutor {@link Executor} where loaded images are delivered.
+     */
+    ImageLoader(int threadCount, ThreadFactory threadFactory, Executor deliveryExecutor) {
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Requests an image, joining the load in flight for the same key if there is one.
+     *
+     * @param key The key identifying the image, such as its url.
+     * @param source {@link Source} loading the image, if there is no load in flight for the key.
+     * @param target {@link Target} receiving the image.
+     * @param priority {@link #PRIORITY_HIGH} for images on screen, {@link #PRIORITY_LOW} otherwise.
+     * @return The {@link Request}, to cancel it.
+     */
+    public synchronized Request load(String key, Source source, Target target, int priority) {
+        Job job = jobs.get(key);
+        if (job == null) {
+            job = new Job(key, source, priority, sequence++);
+            jobs.put(key, job);
+            executor.execute(job);
+        } else if (priority > job.priority && executor.remove(job)) {
+            job.priority = priority;
+            executor.execute(job);
+        }
+        final Request request = new Request(job, target);
+        job.requests.add(request);
+        return request;
+    }
+
+    private synchronized void cancel(Request request) {
+        final Job job = request.job;
+        job.requests.remove(request);
+        if (job.requests.isEmpty() && executor.remove(job)) {
+            jobs.remove(job.key);
+        }
+    }
+
+    private void complete(Job job, final Bitmap bitmap) {
+        final List<Request> requests;
+        synchronized (this) {
+            jobs.remove(job.key);
+            requests = new ArrayList<>(job.requests);
+        }
+        deliveryExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Request request : requests) {
+                    request.deliver(bitmap);
+                }
+            }
+        });
+    }
+
+    /**
+     * A request for an image, which can be cancelled.
+     */
+    public final class Request {
+        private final Job job;
+        private final Target target;
+        private boolean cancelled;
+
+        private Request(Job job, Target target) {
+            this.job = job;
+            this.target = target;
+        }
+
+        /**
+         * Cancels the request, so its image is never delivered. Must be called on the main thread.
+         */
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                ImageLoader.this.cancel(this);
+            }
+        }
+
+        private void deliver(Bitmap bitmap) {
+            if (!cancelled) {
+                if (bitmap != null) {
+                    target.onImageLoaded(bitmap);
+                } else {
+                    target.onImageFailed();
+                }
+            }
+        }
+    }
+
+    /**
+     * The load of an image, shared by every request for its key.
+     */
+    private final class Job implements Runnable, Comparable<Job> {
+        final String key;
+        final Source source;
+        final long sequence;
+        final List<Request> requests = new ArrayList<>();
+        int priority;
+
+        Job(String key, Source source, int priority, long sequence) {
+            this.key = key;
+            this.source = source;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            Bitmap bitmap = null;
+            try {
+                bitmap = source.load();
+            } finally {
+                complete(this, bitmap);
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            if (priority != other.priority) {
+                return (priority > other.priority) ? -1 : 1;
+            }
+            return (sequence > other.sequence) ? -1 : ((sequence == other.sequence) ? 0 : 1);
+        }
+    }
+
+    private static class MainThreadExecutor implements Executor {
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable runnable) {
+            handler.post(runnable);
+        }
+    }
+
+    private static class ImageThreadFactory implements ThreadFactory {
+        private int counter = 0;
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "image_" + counter++);
+        }
+    }
+}
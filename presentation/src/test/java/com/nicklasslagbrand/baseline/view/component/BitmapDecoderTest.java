@@ -0,0 +1,43 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BitmapDecoderTest {
+
+    @Test
+    public void testSampleSizeKeepsBothDimensionsCovered() {
+        assertThat(BitmapDecoder.calculateInSampleSize(1000, 800, 250, 200), is(4));
+        assertThat(BitmapDecoder.calculateInSampleSize(1000, 800, 300, 200), is(2));
+        assertThat(BitmapDecoder.calculateInSampleSize(1000, 800, 250, 300), is(2));
+    }
+
+    @Test
+    public void testImageNoLargerThanTargetIsNotSampled() {
+        assertThat(BitmapDecoder.calculateInSampleSize(200, 100, 200, 100), is(1));
+        assertThat(BitmapDecoder.calculateInSampleSize(200, 100, 400, 400), is(1));
+    }
+
+    @Test
+    public void testUnknownTargetSizeIsNotSampled() {
+        assertThat(BitmapDecoder.calculateInSampleSize(1000, 800, 0, 200), is(1));
+        assertThat(BitmapDecoder.calculateInSampleSize(1000, 800, 250, -1), is(1));
+    }
+}
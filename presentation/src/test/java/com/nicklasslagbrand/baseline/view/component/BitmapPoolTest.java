@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BitmapPoolTest {
+
+    private static final int KITKAT = 19;
+    private static final int JELLY_BEAN_MR2 = 18;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    @Test
+    public void testAnyLargeEnoughBitmapIsReusedSinceKitKat() {
+        final int byteCount = 100 * 100 * BYTES_PER_PIXEL;
+
+        assertThat(BitmapPool.canDecodeInto(KITKAT, 100, 100, byteCount, 200, 200, 2), is(true));
+        assertThat(BitmapPool.canDecodeInto(KITKAT, 100, 100, byteCount, 50, 150, 1), is(true));
+        assertThat(BitmapPool.canDecodeInto(KITKAT, 100, 100, byteCount, 201, 200, 2), is(false));
+    }
+
+    @Test
+    public void testOnlySameSizeUnsampledBitmapIsReusedBeforeKitKat() {
+        final int byteCount = 100 * 100 * BYTES_PER_PIXEL;
+
+        assertThat(BitmapPool.canDecodeInto(JELLY_BEAN_MR2, 100, 100, byteCount, 100, 100, 1), is(true));
+        assertThat(BitmapPool.canDecodeInto(JELLY_BEAN_MR2, 100, 100, byteCount, 200, 200, 2), is(false));
+        assertThat(BitmapPool.canDecodeInto(JELLY_BEAN_MR2, 100, 100, byteCount, 50, 50, 1), is(false));
+    }
+}
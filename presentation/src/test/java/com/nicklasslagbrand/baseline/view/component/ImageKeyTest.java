@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ImageKeyTest {
+
+    private static final String IMAGE_URL = "http://www.android10.org/myapi/cover_1.jpg";
+
+    @Test
+    public void testOriginalKeyIsTheSha1OfTheUrl() {
+        assertThat(ImageKey.original("abc"), is("a9993e364706816aba3e25717850c26c9cd0d89d"));
+        assertThat(ImageKey.original(IMAGE_URL), is(ImageKey.original(IMAGE_URL)));
+    }
+
+    @Test
+    public void testDifferentUrlsHaveDifferentKeys() {
+        assertThat(ImageKey.original(IMAGE_URL), is(not(ImageKey.original(IMAGE_URL + "?"))));
+        assertThat(ImageKey.sized(IMAGE_URL, 100, 100), is(not(ImageKey.sized(IMAGE_URL + "?", 100, 100))));
+    }
+
+    @Test
+    public void testDifferentSizesHaveDifferentKeys() {
+        assertThat(ImageKey.sized(IMAGE_URL, 100, 200), is(not(ImageKey.sized(IMAGE_URL, 200, 100))));
+        assertThat(ImageKey.sized(IMAGE_URL, 1, 11), is(not(ImageKey.sized(IMAGE_URL, 11, 1))));
+        assertThat(ImageKey.sized(IMAGE_URL, 100, 100), is(not(ImageKey.original(IMAGE_URL))));
+    }
+}
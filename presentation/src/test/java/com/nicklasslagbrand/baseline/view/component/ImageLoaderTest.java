@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2015 Fernando Cejas Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.nicklasslagbrand.baseline.view.component;
+
+import android.graphics.Bitmap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class ImageLoaderTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final List<String> loadedKeys = Collections.synchronizedList(new ArrayList<String>());
+    private final CountDownLatch blockerReleased = new CountDownLatch(1);
+
+    private ImageLoader imageLoader;
+
+    @Before
+    public void setUp() {
+        final Executor directExecutor = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        };
+        imageLoader = new ImageLoader(1, Executors.defaultThreadFactory(), directExecutor);
+        // keeps the only thread busy, so the next loads wait in the queue
+        imageLoader.load("blocker", new ImageLoader.Source() {
+            @Override
+            public Bitmap load() {
+                awaitQuietly(blockerReleased);
+                return null;
+            }
+        }, new RecordingTarget(), ImageLoader.PRIORITY_HIGH);
+    }
+
+    @After
+    public void tearDown() {
+        blockerReleased.countDown();
+    }
+
+    @Test
+    public void testRequestsForTheSameKeyShareOneLoad() throws InterruptedException {
+        final RecordingTarget first = new RecordingTarget();
+        final RecordingTarget second = new RecordingTarget();
+
+        imageLoader.load("image", new RecordingSource("image"), first, ImageLoader.PRIORITY_LOW);
+        imageLoader.load("image", new RecordingSource("image"), second, ImageLoader.PRIORITY_LOW);
+        blockerReleased.countDown();
+
+        assertThat(first.awaitDelivery(), is(true));
+        assertThat(second.awaitDelivery(), is(true));
+        assertThat(loadedKeys, is(Collections.singletonList("image")));
+    }
+
+    @Test
+    public void testRequestCancelledBeforeStartIsNeitherLoadedNorDelivered() throws InterruptedException {
+        final RecordingTarget cancelled = new RecordingTarget();
+        final RecordingTarget kept = new RecordingTarget();
+
+        imageLoader.load("cancelled", new RecordingSource("cancelled"), cancelled, ImageLoader.PRIORITY_LOW)
+                   .cancel();
+        imageLoader.load("kept", new RecordingSource("kept"), kept, ImageLoader.PRIORITY_LOW);
+        blockerReleased.countDown();
+
+        assertThat(kept.awaitDelivery(), is(true));
+        assertThat(loadedKeys, is(Collections.singletonList("kept")));
+        assertThat(cancelled.deliveries.getCount(), is(1L));
+    }
+
+    @Test
+    public void testPendingLoadsRunByPriorityThenNewestFirst() throws InterruptedException {
+        final RecordingTarget last = new RecordingTarget();
+
+        imageLoader.load("old low", new RecordingSource("old low"), last, ImageLoader.PRIORITY_LOW);
+        imageLoader.load("high", new RecordingSource("high"), new RecordingTarget(), ImageLoader.PRIORITY_HIGH);
+        imageLoader.load("new low", new RecordingSource("new low"), new RecordingTarget(), ImageLoader.PRIORITY_LOW);
+        blockerReleased.countDown();
+
+        assertThat(last.awaitDelivery(), is(true));
+        assertThat(loadedKeys, is(Arrays.asList("high", "new low", "old low")));
+    }
+
+    @Test
+    public void testRaisedPriorityIsHonoured() throws InterruptedException {
+        final RecordingTarget last = new RecordingTarget();
+
+        imageLoader.load("raised", new RecordingSource("raised"), new RecordingTarget(), ImageLoader.PRIORITY_LOW);
+        imageLoader.load("low", new RecordingSource("low"), last, ImageLoader.PRIORITY_LOW);
+        imageLoader.load("raised", new RecordingSource("raised"), new RecordingTarget(), ImageLoader.PRIORITY_HIGH);
+        blockerReleased.countDown();
+
+        assertThat(last.awaitDelivery(), is(true));
+        assertThat(loadedKeys, is(Arrays.asList("raised", "low")));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * {@link ImageLoader.Source} recording the keys it loads, in order, failing every load.
+     */
+    private class RecordingSource implements ImageLoader.Source {
+        private final String key;
+
+        RecordingSource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public Bitmap load() {
+            loadedKeys.add(key);
+            return null;
+        }
+    }
+
+    /**
+     * {@link ImageLoader.Target} that can be waited on until an image, or its failure, is delivered.
+     */
+    private static class RecordingTarget implements ImageLoader.Target {
+        final CountDownLatch deliveries = new CountDownLatch(1);
+
+        @Override
+        public void onImageLoaded(Bitmap bitmap) {
+            deliveries.countDown();
+        }
+
+        @Override
+        public void onImageFailed() {
+            deliveries.countDown();
+        }
+
+        boolean awaitDelivery() throws InterruptedException {
+            return deliveries.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+}